@@ -0,0 +1,461 @@
+/**
+ * @author Claire Jiasin Lua AsyncFileWriter class is a Writer that encodes
+ *         and writes to a file on a background thread, so that a SpellChecker
+ *         can go on checking while its output is written. Characters are
+ *         collected in blocks; full blocks go through a bounded ring to the
+ *         writer thread, which encodes them into a direct buffer and writes
+ *         it to a FileChannel. When all the blocks of the ring are waiting to
+ *         be written, writing waits for one to be free; how often and how
+ *         long it waits is counted, to tell when the disk is the bottleneck.
+ *
+ *         flush() returns once everything written so far has been handed to
+ *         the operating system. close() flushes, then, if setForceOnClose was
+ *         set, forces the file to the storage device before closing it. An
+ *         error of the writer thread is thrown by the next call.
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncFileWriter extends Writer {
+    static final int DEFAULT_BLOCK_CHARS = 64 * 1024;
+    static final int DEFAULT_BLOCKS = 8;
+    // Size of the direct buffer blocks are encoded into.
+    static final int BUFFER_BYTES = 256 * 1024;
+    // How often a writer waiting for a free block checks the writer thread.
+    static final long WAIT_MILLIS = 100;
+
+    /**
+     * Block is a block of characters of the ring.
+     */
+    static class Block {
+        char[] chars;
+        int length = 0;
+
+        Block(int size) {
+            chars = new char[size];
+        }
+    }
+
+    // Tells the writer thread to stop.
+    static final Block END = new Block(0);
+
+    FileChannel channel;
+    CharsetEncoder encoder;
+    ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    // Blocks waiting to be written, and blocks free to fill.
+    ArrayBlockingQueue<Block> full;
+    ArrayBlockingQueue<Block> free;
+    // Block being filled, null until the first write after a handoff.
+    Block current = null;
+    // High surrogate ending the last block written, waiting for its pair.
+    CharBuffer carry = CharBuffer.allocate(0);
+    Thread thread;
+    boolean forceOnClose = false;
+    boolean closed = false;
+    volatile IOException failure = null;
+
+    // Blocks handed to the writer thread, and blocks it has written.
+    long submitted = 0;
+    long written = 0;
+    final Object progress = new Object();
+    volatile long bytesWritten = 0;
+    volatile long writeNanos = 0;
+    long waits = 0;
+    long waitNanos = 0;
+
+    /**
+     * AsyncFileWriter constructor writing in the default charset, like
+     * FileWriter.
+     * @param fileName
+     * @return
+     * @throws IOException
+     */
+    public AsyncFileWriter(String fileName) throws IOException {
+        this(fileName, Charset.defaultCharset());
+    }
+
+    /**
+     * AsyncFileWriter constructor replacing the characters the charset
+     * cannot encode, like FileWriter.
+     * @param fileName
+     * @param charset
+     * @return
+     * @throws IOException
+     */
+    public AsyncFileWriter(String fileName, Charset charset)
+            throws IOException {
+        this(fileName, charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE),
+                DEFAULT_BLOCK_CHARS, DEFAULT_BLOCKS);
+    }
+
+    /**
+     * AsyncFileWriter constructor
+     * @param fileName   file to create or truncate
+     * @param encoder    encodes the characters, with its error actions
+     * @param blockChars characters per block, at least 1
+     * @param blocks     blocks in the ring, at least 1
+     * @return
+     * @throws IOException
+     */
+    public AsyncFileWriter(String fileName, CharsetEncoder encoder,
+            int blockChars, int blocks) throws IOException {
+        this.encoder = encoder;
+        channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        blocks = Math.max(1, blocks);
+        full = new ArrayBlockingQueue<Block>(blocks + 1);
+        free = new ArrayBlockingQueue<Block>(blocks);
+        for (int i = 0; i < blocks; i++) {
+            free.add(new Block(Math.max(1, blockChars)));
+        }
+        thread = new Thread(this::writeBlocks, "AsyncFileWriter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * setForceOnClose sets whether close() forces the file's content to the
+     * storage device, so that it survives a crash of the system.
+     * @param forceOnClose
+     * @return AsyncFileWriter
+     */
+    public AsyncFileWriter setForceOnClose(boolean forceOnClose) {
+        this.forceOnClose = forceOnClose;
+        return this;
+    }
+
+    /**
+     * writeBlocks encodes and writes blocks until END. After an error the
+     * blocks are only given back, so that writers do not wait forever.
+     */
+    void writeBlocks() {
+        try {
+            while (true) {
+                Block block = full.take();
+                if (block == END) {
+                    return;
+                }
+                if (failure == null) {
+                    try {
+                        long start = System.nanoTime();
+                        encodeBlock(block);
+                        writeNanos += System.nanoTime() - start;
+                    } catch (IOException e) {
+                        failure = e;
+                    } catch (Throwable e) {
+                        // Keep giving the blocks back after any error.
+                        failure = new IOException("Encoding failed", e);
+                    }
+                }
+                block.length = 0;
+                free.add(block);
+                synchronized (progress) {
+                    written++;
+                    progress.notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            failure = new IOException("AsyncFileWriter interrupted", e);
+        }
+    }
+
+    /**
+     * encodeBlock encodes and writes a block, after the character carried
+     * over from the previous one, if any, and carries over the high surrogate
+     * it may end with.
+     * @param block
+     * @throws IOException
+     */
+    void encodeBlock(Block block) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(block.chars, 0, block.length);
+        if (carry.hasRemaining()) {
+            chars = CharBuffer.allocate(carry.remaining() + block.length)
+                    .put(carry).put(chars).flip();
+        }
+        encode(chars, false);
+        carry = CharBuffer.allocate(chars.remaining()).put(chars).flip();
+    }
+
+    /**
+     * encode encodes characters into the buffer, writing it to the channel
+     * whenever it is full. At the end of the input the encoder is flushed
+     * and the buffer written.
+     * @param chars
+     * @param endOfInput
+     * @throws IOException
+     */
+    void encode(CharBuffer chars, boolean endOfInput) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, endOfInput);
+            if (result.isOverflow()) {
+                writeBuffer();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                result.throwException();
+            }
+        }
+        if (endOfInput) {
+            while (encoder.flush(buffer).isOverflow()) {
+                writeBuffer();
+            }
+        }
+        writeBuffer();
+    }
+
+    /**
+     * writeBuffer writes the bytes of the buffer to the channel.
+     * @throws IOException
+     */
+    void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * checkFailure throws the error of the writer thread, if any.
+     * @throws IOException
+     */
+    void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Writing failed", failure);
+        }
+    }
+
+    /**
+     * nextBlock returns a free block, waiting for one if all are full. It
+     * fails instead if the writer thread failed or died.
+     * @return Block
+     * @throws IOException
+     */
+    Block nextBlock() throws IOException {
+        Block block = free.poll();
+        if (block != null) {
+            return block;
+        }
+        long start = System.nanoTime();
+        try {
+            while (block == null) {
+                checkFailure();
+                if (!thread.isAlive()) {
+                    throw new IOException("The writer thread stopped");
+                }
+                block = free.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for the writer", e);
+        }
+        waits++;
+        waitNanos += System.nanoTime() - start;
+        return block;
+    }
+
+    /**
+     * handOff gives the current block to the writer thread.
+     */
+    void handOff() {
+        if (current != null && current.length > 0) {
+            submit(current);
+            current = null;
+        }
+    }
+
+    /**
+     * @param block
+     */
+    void submit(Block block) {
+        synchronized (progress) {
+            submitted++;
+        }
+        full.add(block);
+    }
+
+    /**
+     * @param chars
+     * @param offset
+     * @param length
+     * @throws IOException
+     */
+    public synchronized void write(char[] chars, int offset, int length)
+            throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            if (current == null) {
+                current = nextBlock();
+            }
+            int n = Math.min(length, current.chars.length - current.length);
+            System.arraycopy(chars, offset, current.chars, current.length, n);
+            current.length += n;
+            offset += n;
+            length -= n;
+            if (current.length == current.chars.length) {
+                handOff();
+            }
+        }
+    }
+
+    /**
+     * @param string
+     * @param offset
+     * @param length
+     * @throws IOException
+     */
+    public synchronized void write(String string, int offset, int length)
+            throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            if (current == null) {
+                current = nextBlock();
+            }
+            int n = Math.min(length, current.chars.length - current.length);
+            string.getChars(offset, offset + n, current.chars,
+                    current.length);
+            current.length += n;
+            offset += n;
+            length -= n;
+            if (current.length == current.chars.length) {
+                handOff();
+            }
+        }
+    }
+
+    /**
+     * @param c
+     * @throws IOException
+     */
+    public void write(int c) throws IOException {
+        write(new char[] { (char) c }, 0, 1);
+    }
+
+    /**
+     * @throws IOException
+     */
+    void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        checkFailure();
+    }
+
+    /**
+     * flush waits until everything written so far, except a high surrogate
+     * waiting for its pair, has been written to the channel.
+     * @throws IOException
+     */
+    public synchronized void flush() throws IOException {
+        ensureOpen();
+        handOff();
+        awaitWritten();
+        checkFailure();
+    }
+
+    /**
+     * awaitWritten waits until the writer thread has written every block
+     * submitted.
+     * @throws IOException
+     */
+    void awaitWritten() throws IOException {
+        synchronized (progress) {
+            while (written < submitted && thread.isAlive()) {
+                try {
+                    progress.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted waiting for the writer",
+                            e);
+                }
+            }
+        }
+    }
+
+    /**
+     * close writes everything left, flushes the encoder, forces the file to
+     * the device if setForceOnClose was set, and closes it. Closing twice
+     * does nothing.
+     * @throws IOException
+     */
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            handOff();
+            full.add(END);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for the writer",
+                        e);
+            }
+            checkFailure();
+            long start = System.nanoTime();
+            // An unpaired high surrogate is encoded as the end of the input.
+            encode(carry, true);
+            if (forceOnClose) {
+                channel.force(true);
+            }
+            writeNanos += System.nanoTime() - start;
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    /**
+     * @return long bytes written to the file
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * @return long nanoseconds the writer thread spent encoding and writing
+     */
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    /**
+     * @return long times writing had to wait for a free block
+     */
+    public long getWaits() {
+        return waits;
+    }
+
+    /**
+     * @return long nanoseconds writing waited for free blocks
+     */
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    /**
+     * @return String bytes written and time spent waiting for the disk
+     */
+    public String toString() {
+        return String.format(
+                "%d bytes written in %.1f ms, %d waits for a free block"
+                        + " (%.1f ms)",
+                bytesWritten, writeNanos / 1e6, waits, waitNanos / 1e6);
+    }
+}
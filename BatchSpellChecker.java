@@ -0,0 +1,265 @@
+/**
+ * @author Claire Jiasin Lua BatchSpellChecker class spell checks files
+ *         without user input. Every misspelled word is corrected with a
+ *         CorrectionPolicy, and the errors are listed in a tab separated
+ *         report next to the checked file.
+ */
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+
+public class BatchSpellChecker {
+    static final String REPORT_HEADER =
+            "line\tword\toriginal\tcorrection\tsuggestions\n";
+
+    WordRecommender wordRecommender;
+    CorrectionPolicy policy;
+    // Whether to find the suggestions of a whole file before writing it.
+    boolean twoPass = false;
+    // Whether to write checked files with an AsyncFileWriter, and to force
+    // them to the device when they are closed.
+    boolean asyncOutput = false;
+    boolean forceOutput = false;
+    // Whether the report lists the suggestions of each misspelled word.
+    boolean reportSuggestions = true;
+
+    /**
+     * BatchSpellChecker constructor
+     * @param wordRecommender
+     * @param policy how to correct misspelled words
+     * @return
+     */
+    public BatchSpellChecker(WordRecommender wordRecommender,
+            CorrectionPolicy policy) {
+        this.wordRecommender = wordRecommender;
+        this.policy = policy;
+    }
+
+    /**
+     * setTwoPass sets whether each file is read twice: once to collect its
+     * misspelled words and find all their suggestions in one pass over the
+     * dictionary, then again to write it. The output is the same either way.
+     * @param twoPass
+     * @return BatchSpellChecker
+     */
+    public BatchSpellChecker setTwoPass(boolean twoPass) {
+        this.twoPass = twoPass;
+        return this;
+    }
+
+    /**
+     * setAsyncOutput sets whether checked files are encoded and written on a
+     * background thread by an AsyncFileWriter, and whether it forces them to
+     * the storage device when they are closed.
+     * @param asyncOutput
+     * @param forceOutput
+     * @return BatchSpellChecker
+     */
+    public BatchSpellChecker setAsyncOutput(boolean asyncOutput,
+            boolean forceOutput) {
+        this.asyncOutput = asyncOutput;
+        this.forceOutput = forceOutput;
+        return this;
+    }
+
+    /**
+     * setReportSuggestions sets whether the report lists the suggestions of
+     * each misspelled word. Without them the column is left empty, and with
+     * the keep or mark policy no suggestions are searched for at all.
+     * @param reportSuggestions
+     * @return BatchSpellChecker
+     */
+    public BatchSpellChecker setReportSuggestions(boolean reportSuggestions) {
+        this.reportSuggestions = reportSuggestions;
+        return this;
+    }
+
+    /**
+     * needsSuggestions checks whether the policy or the report uses the
+     * suggestions of the misspelled words.
+     * @return boolean
+     */
+    boolean needsSuggestions() {
+        return reportSuggestions || policy == CorrectionPolicy.TOP_SUGGESTION;
+    }
+
+    /**
+     * newOutput opens a checked file for writing.
+     * @param outputPath
+     * @return Writer
+     * @throws IOException
+     */
+    Writer newOutput(String outputPath) throws IOException {
+        if (asyncOutput) {
+            return new AsyncFileWriter(outputPath)
+                    .setForceOnClose(forceOutput);
+        }
+        return new BufferedWriter(new FileWriter(outputPath));
+    }
+
+    /**
+     * recordOutput adds what a closed AsyncFileWriter wrote, and how long it
+     * made the checker wait, to the metrics of the WordRecommender, if any.
+     * @param output
+     */
+    void recordOutput(Writer output) {
+        MetricsRegistry metrics = wordRecommender.getMetrics();
+        if (metrics == null || !(output instanceof AsyncFileWriter)) {
+            return;
+        }
+        AsyncFileWriter writer = (AsyncFileWriter) output;
+        metrics.counter("output.bytes").add(writer.getBytesWritten());
+        metrics.counter("output.writeNanos").add(writer.getWriteNanos());
+        metrics.counter("output.waits").add(writer.getWaits());
+        metrics.counter("output.waitNanos").add(writer.getWaitNanos());
+    }
+
+    /**
+     * getReportPath returns the path of the error report of an input file,
+     * which is the checked file's path followed by ".report.tsv".
+     * @param inputPath
+     * @return String
+     */
+    public static String getReportPath(String inputPath) {
+        return SpellChecker.getOutputPath(inputPath) + ".report.tsv";
+    }
+
+    /**
+     * check writes the checked file of inputPath and its report. Each line of
+     * the report has the line and word number of a misspelled word, the word,
+     * its correction and its suggestions separated by spaces.
+     * @param inputPath path to the input file to spell check
+     * @return int number of misspelled words
+     * @throws IOException
+     */
+    public int check(String inputPath) throws IOException {
+        // The input is opened first, so that a missing input leaves no
+        // checked file behind, and every file opened is closed if the next
+        // one cannot be.
+        try (Reader input = new InputStreamReader(
+                new FileInputStream(inputPath));
+                Writer output = newOutput(
+                        SpellChecker.getOutputPath(inputPath));
+                BufferedWriter report = new BufferedWriter(
+                        new FileWriter(getReportPath(inputPath)))) {
+            SpellChecker spellChecker =
+                    new SpellChecker(wordRecommender, inputPath, input, output);
+            try {
+                if (twoPass && needsSuggestions()) {
+                    spellChecker.resolveSuggestions();
+                }
+                report.write(REPORT_HEADER);
+                return correctErrors(spellChecker, report);
+            } finally {
+                spellChecker.close();
+                recordOutput(output);
+            }
+        }
+    }
+
+    /**
+     * correctErrors corrects every misspelled word of a SpellChecker with the
+     * policy and writes a line of the report for each, without the header.
+     * The suggestions are only searched for if needsSuggestions.
+     * @param spellChecker
+     * @param report
+     * @return int number of misspelled words
+     * @throws IOException
+     */
+    int correctErrors(SpellChecker spellChecker, Writer report)
+            throws IOException {
+        int errors = 0;
+        SpellSuggestion suggestion = spellChecker.nextError();
+        while (suggestion != null) {
+            String correctedWord = policy.getCorrectedWord(suggestion);
+            String suggestions = reportSuggestions
+                    ? String.join(" ", suggestion.getSuggestions())
+                    : "";
+            report.write(spellChecker.getLineNumber() + "\t"
+                    + spellChecker.getWordNumber() + "\t"
+                    + suggestion.getOriginalWord() + "\t" + correctedWord
+                    + "\t" + suggestions + "\n");
+            spellChecker.setCorrection(correctedWord);
+            errors++;
+            suggestion = spellChecker.nextError();
+        }
+        return errors;
+    }
+
+    /**
+     * Check the files given as arguments:
+     * [-policy top|keep|mark] [-passes 1|2] [-output buffered|async|durable]
+     * [-report full|brief] [-dictionary path] file...
+     * @param args
+     */
+    public static void main(String[] args) {
+        String dictionaryPath = "engDictionary.txt";
+        CorrectionPolicy policy = CorrectionPolicy.TOP_SUGGESTION;
+        boolean twoPass = false;
+        String output = "buffered";
+        boolean reportSuggestions = true;
+        int i = 0;
+        try {
+            for (; i < args.length && args[i].startsWith("-"); i += 2) {
+                if (args[i].equals("-policy") && i + 1 < args.length) {
+                    policy = CorrectionPolicy.fromName(args[i + 1]);
+                } else if (args[i].equals("-passes") && i + 1 < args.length
+                        && args[i + 1].matches("[12]")) {
+                    twoPass = args[i + 1].equals("2");
+                } else if (args[i].equals("-output") && i + 1 < args.length
+                        && args[i + 1].matches("buffered|async|durable")) {
+                    output = args[i + 1];
+                } else if (args[i].equals("-report") && i + 1 < args.length
+                        && args[i + 1].matches("full|brief")) {
+                    reportSuggestions = args[i + 1].equals("full");
+                } else if (args[i].equals("-dictionary")
+                        && i + 1 < args.length) {
+                    dictionaryPath = args[i + 1];
+                } else {
+                    throw new IllegalArgumentException(
+                            "Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println("Usage: BatchSpellChecker"
+                    + " [-policy top|keep|mark] [-passes 1|2]"
+                    + " [-output buffered|async|durable]"
+                    + " [-report full|brief] [-dictionary path] file...");
+            System.exit(2);
+        }
+
+        WordRecommender wordRecommender;
+        try {
+            wordRecommender = new WordRecommender(dictionaryPath);
+        } catch (IOException e) {
+            System.out.println("File operation error: " + e.toString());
+            System.exit(1);
+            return;
+        }
+        BatchSpellChecker batchSpellChecker =
+                new BatchSpellChecker(wordRecommender, policy)
+                        .setTwoPass(twoPass)
+                        .setAsyncOutput(!output.equals("buffered"),
+                                output.equals("durable"))
+                        .setReportSuggestions(reportSuggestions);
+        int failed = 0;
+        for (; i < args.length; i++) {
+            try {
+                int errors = batchSpellChecker.check(args[i]);
+                System.out.println(args[i] + ": " + errors + " errors");
+            } catch (IOException e) {
+                System.out.println("File operation error: " + e.toString());
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}
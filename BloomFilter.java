@@ -0,0 +1,149 @@
+/**
+ * @author Claire Jiasin Lua BloomFilter class answers "definitely not a
+ *         word" for most words that are not in the dictionary, from a bit
+ *         array small enough to stay in the CPU cache, so isValidWord does
+ *         not have to look them up in the WordIndex.
+ *
+ *         The bit positions of a word are derived from String.hashCode(),
+ *         which a String caches, by double hashing.
+ */
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class BloomFilter {
+    // At most this many bits per word; more barely lowers false positives.
+    static final int MAX_BITS_PER_WORD = 16;
+
+    long[] bits;
+    // Number of bits - 1; the number of bits is a power of 2.
+    int mask;
+    int hashCount;
+    int wordCount = 0;
+    // Lookups rejected by the filter, and lookups it let through for words
+    // that turned out not to be in the dictionary.
+    LongAdder rejected = new LongAdder();
+    LongAdder falsePositives = new LongAdder();
+
+    /**
+     * BloomFilter constructor for the given number of words, using at most
+     * maxBytes of memory.
+     *
+     * @param expectedWords
+     * @param maxBytes
+     * @return
+     */
+    BloomFilter(int expectedWords, int maxBytes) {
+        long wantedBits = Math.max(64L,
+                (long) Math.max(1, expectedWords) * MAX_BITS_PER_WORD);
+        long maxBits = Math.max(64L, (long) maxBytes * 8);
+        long bitCount = Long.highestOneBit(Math.min(wantedBits, maxBits));
+        bits = new long[(int) (bitCount / 64)];
+        mask = (int) (bitCount - 1);
+        double bitsPerWord = bitCount / (double) Math.max(1, expectedWords);
+        long optimalHashCount = Math.round(bitsPerWord * Math.log(2));
+        hashCount = (int) Math.max(1,
+                Math.min(MAX_BITS_PER_WORD, optimalHashCount));
+    }
+
+    /**
+     * mix spreads the bits of a hash code into a second hash.
+     *
+     * @param hash
+     * @return int
+     */
+    static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return (hash ^ (hash >>> 16)) | 1;
+    }
+
+    /**
+     * add a word to the filter.
+     *
+     * @param word
+     */
+    void add(String word) {
+        int hash = word.hashCode();
+        int step = mix(hash);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = hash & mask;
+            bits[bit >>> 6] |= 1L << bit;
+            hash += step;
+        }
+        wordCount++;
+    }
+
+    /**
+     * mightContain returns false if the word was never added, and true if it
+     * probably was.
+     *
+     * @param word
+     * @return boolean
+     */
+    boolean mightContain(String word) {
+        int hash = word.hashCode();
+        int step = mix(hash);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = hash & mask;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                rejected.increment();
+                return false;
+            }
+            hash += step;
+        }
+        return true;
+    }
+
+    /**
+     * recordFalsePositive counts a word that mightContain let through but
+     * that was not in the dictionary.
+     */
+    void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    /**
+     * @return long memory used by the bits
+     */
+    public long sizeInBytes() {
+        return bits.length * 8L;
+    }
+
+    /**
+     * getExpectedFalsePositiveRate returns the probability that a word not in
+     * the filter gets through, (1 - e^(-kn/m))^k.
+     *
+     * @return double
+     */
+    public double getExpectedFalsePositiveRate() {
+        double bitCount = bits.length * 64.0;
+        return Math.pow(1 - Math.exp(-hashCount * wordCount / bitCount),
+                hashCount);
+    }
+
+    /**
+     * getObservedFalsePositiveRate returns the share of the lookups of words
+     * not in the dictionary that the filter let through so far.
+     *
+     * @return double
+     */
+    public double getObservedFalsePositiveRate() {
+        long falsePositiveCount = falsePositives.sum();
+        long negatives = falsePositiveCount + rejected.sum();
+        return negatives == 0 ? 0 : falsePositiveCount / (double) negatives;
+    }
+
+    /**
+     * @return String
+     */
+    public String toString() {
+        return String.format(
+                "%d words, %d bytes, %d hashes, expected false positives"
+                        + " %.4f%%, observed %.4f%%",
+                wordCount, sizeInBytes(), hashCount,
+                100 * getExpectedFalsePositiveRate(),
+                100 * getObservedFalsePositiveRate());
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * @author Claire Jiasin Lua CharSignature class computes a 64-bit mask of the
+ *         distinct characters in a word, so that the common letters between
+ *         two words can be counted without building sets of characters.
+ */
+
+class CharSignature {
+    // Bit set when the word has a character that has no bit of its own.
+    static final long OTHER = 1L << 63;
+
+    /**
+     * bit returns the mask bit for a character: a-z, A-Z, 0-9 and the
+     * apostrophe have a bit each, every other character maps to OTHER.
+     *
+     * @param c
+     * @return long
+     */
+    static long bit(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return 1L << (c - 'a');
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return 1L << (c - 'A' + 26);
+        }
+        if (c >= '0' && c <= '9') {
+            return 1L << (c - '0' + 52);
+        }
+        if (c == '\'') {
+            return 1L << 62;
+        }
+        return OTHER;
+    }
+
+    /**
+     * of returns the signature of a word.
+     *
+     * @param word
+     * @return long
+     */
+    static long of(String word) {
+        long signature = 0;
+        for (int i = 0; i < word.length(); i++) {
+            signature |= bit(word.charAt(i));
+        }
+        return signature;
+    }
+
+    /**
+     * distinct returns the number of distinct characters of a word, given its
+     * signature.
+     *
+     * @param word
+     * @param signature
+     * @return int
+     */
+    static int distinct(String word, long signature) {
+        if (isExact(signature)) {
+            return Long.bitCount(signature);
+        }
+        return (int) word.chars().distinct().count();
+    }
+
+    /**
+     * isExact checks that a signature holds every distinct character of its
+     * word, i.e. that the word has no character mapped to OTHER.
+     *
+     * @param signature
+     * @return boolean
+     */
+    static boolean isExact(long signature) {
+        return (signature & OTHER) == 0;
+    }
+
+    /**
+     * common returns the number of distinct characters two exact signatures
+     * have in common.
+     *
+     * @param signature1
+     * @param signature2
+     * @return int
+     */
+    static int common(long signature1, long signature2) {
+        return Long.bitCount(signature1 & signature2);
+    }
+
+    /**
+     * commonPercent returns the number of common characters divided by the
+     * number of distinct characters of both exact signatures.
+     *
+     * @param signature1
+     * @param signature2
+     * @return double
+     */
+    static double commonPercent(long signature1, long signature2) {
+        return Long.bitCount(signature1 & signature2)
+                / (double) Long.bitCount(signature1 | signature2);
+    }
+}
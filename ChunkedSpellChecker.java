@@ -0,0 +1,354 @@
+/**
+ * @author Claire Jiasin Lua ChunkedSpellChecker class batch checks one large
+ *         file on several worker threads. The file is memory mapped and split
+ *         into chunks that end at a line break; each worker checks a chunk
+ *         with its own SpellChecker against the shared WordRecommender, and
+ *         the checked chunks are written back in file order. Only a bounded
+ *         number of chunks are in memory at once, so files of any size can
+ *         be checked.
+ *
+ *         The checked file and report are byte for byte the ones
+ *         BatchSpellChecker writes. Chunks are only split at '\n' bytes, so
+ *         the default charset must encode '\n' as that byte (UTF-8, ASCII and
+ *         the ISO-8859 and Windows code pages do); otherwise, or for files
+ *         without '\n', the file is checked as a single chunk.
+ */
+
+import java.io.BufferedWriter;
+import java.io.CharArrayReader;
+import java.io.CharArrayWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ChunkedSpellChecker {
+    // Size chunks are cut at, before moving to the end of the line.
+    static final int DEFAULT_CHUNK_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * Chunk is the checked text and the report lines of one chunk, whose
+     * line numbers count from the start of the chunk.
+     */
+    static class Chunk {
+        CharArrayWriter output = new CharArrayWriter();
+        StringWriter report = new StringWriter();
+        int lines;
+        int errors;
+    }
+
+    BatchSpellChecker batchSpellChecker;
+    int workers;
+    int chunkBytes = DEFAULT_CHUNK_BYTES;
+    Charset charset = Charset.defaultCharset();
+
+    /**
+     * ChunkedSpellChecker constructor
+     * @param wordRecommender dictionary shared by all workers
+     * @param policy          how to correct misspelled words
+     * @param workers         number of worker threads, 0 for one per
+     *                        processor
+     * @return
+     */
+    public ChunkedSpellChecker(WordRecommender wordRecommender,
+            CorrectionPolicy policy, int workers) {
+        this.batchSpellChecker = new BatchSpellChecker(wordRecommender, policy);
+        this.workers = workers > 0 ? workers
+                : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * setChunkBytes sets the size chunks are cut at; each chunk goes on to
+     * the end of the line it is cut in.
+     * @param chunkBytes
+     * @return ChunkedSpellChecker
+     */
+    public ChunkedSpellChecker setChunkBytes(int chunkBytes) {
+        this.chunkBytes = Math.max(1, chunkBytes);
+        return this;
+    }
+
+    /**
+     * setAsyncOutput sets whether checked files are written by an
+     * AsyncFileWriter, as BatchSpellChecker.setAsyncOutput does.
+     * @param asyncOutput
+     * @param forceOutput
+     * @return ChunkedSpellChecker
+     */
+    public ChunkedSpellChecker setAsyncOutput(boolean asyncOutput,
+            boolean forceOutput) {
+        batchSpellChecker.setAsyncOutput(asyncOutput, forceOutput);
+        return this;
+    }
+
+    /**
+     * setReportSuggestions sets whether the report lists the suggestions of
+     * each misspelled word, as BatchSpellChecker.setReportSuggestions does.
+     * @param reportSuggestions
+     * @return ChunkedSpellChecker
+     */
+    public ChunkedSpellChecker setReportSuggestions(
+            boolean reportSuggestions) {
+        batchSpellChecker.setReportSuggestions(reportSuggestions);
+        return this;
+    }
+
+    /**
+     * isSplittable checks that the charset encodes '\n' as the single byte
+     * '\n', so that the file can be split after those bytes.
+     * @param charset
+     * @return boolean
+     */
+    static boolean isSplittable(Charset charset) {
+        return Arrays.equals("\n".getBytes(charset), new byte[] { '\n' });
+    }
+
+    /**
+     * chunkEnd returns the position just after the first '\n' at or after
+     * start + chunkBytes - 1, or the size of the file if there is none.
+     * @param channel
+     * @param start
+     * @param size
+     * @return long
+     * @throws IOException
+     */
+    long chunkEnd(FileChannel channel, long start, long size)
+            throws IOException {
+        long position = start + chunkBytes - 1;
+        while (position < size) {
+            int length = (int) Math.min(chunkBytes, size - position);
+            ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+                    position, length);
+            for (int i = 0; i < length; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += length;
+        }
+        return size;
+    }
+
+    /**
+     * checkChunk decodes a chunk of the file and checks it with a
+     * SpellChecker of its own.
+     * @param bytes
+     * @return Chunk
+     * @throws IOException
+     */
+    Chunk checkChunk(ByteBuffer bytes) throws IOException {
+        // The same replacements as the InputStreamReader of SpellChecker.
+        CharBuffer chars = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(bytes);
+        Chunk chunk = new Chunk();
+        SpellChecker spellChecker = new SpellChecker(
+                batchSpellChecker.wordRecommender,
+                new CharArrayReader(chars.array(), chars.arrayOffset(),
+                        chars.remaining()),
+                chunk.output);
+        try {
+            chunk.errors =
+                    batchSpellChecker.correctErrors(spellChecker, chunk.report);
+            chunk.lines = spellChecker.getLineNumber();
+        } finally {
+            spellChecker.close();
+        }
+        return chunk;
+    }
+
+    /**
+     * writeReport writes the report lines of a chunk, adding the lines of the
+     * chunks before it to their line numbers.
+     * @param report
+     * @param chunk
+     * @param lineOffset
+     * @throws IOException
+     */
+    static void writeReport(BufferedWriter report, Chunk chunk,
+            long lineOffset) throws IOException {
+        String lines = chunk.report.toString();
+        int start = 0;
+        while (start < lines.length()) {
+            int tab = lines.indexOf('\t', start);
+            int end = lines.indexOf('\n', tab) + 1;
+            long line = Integer.parseInt(lines.substring(start, tab));
+            report.write(Long.toString(lineOffset + line));
+            report.write(lines, tab, end - tab);
+            start = end;
+        }
+    }
+
+    /**
+     * check writes the checked file of inputPath and its report, the same as
+     * BatchSpellChecker.check.
+     * @param inputPath path to the input file to spell check
+     * @return long number of misspelled words
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public long check(String inputPath)
+            throws IOException, InterruptedException {
+        if (!isSplittable(charset)) {
+            return batchSpellChecker.check(inputPath);
+        }
+        // At most two chunks per worker are read or waiting to be written.
+        int maxChunks = workers * 2;
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        ArrayDeque<Future<Chunk>> chunks = new ArrayDeque<Future<Chunk>>();
+        try (FileChannel channel = FileChannel.open(Paths.get(inputPath),
+                StandardOpenOption.READ)) {
+            Writer output = batchSpellChecker.newOutput(
+                    SpellChecker.getOutputPath(inputPath));
+            try (BufferedWriter report = new BufferedWriter(new FileWriter(
+                    BatchSpellChecker.getReportPath(inputPath)))) {
+                report.write(BatchSpellChecker.REPORT_HEADER);
+                long size = channel.size();
+                long start = 0;
+                long lines = 0;
+                long errors = 0;
+                while (start < size || !chunks.isEmpty()) {
+                    while (start < size && chunks.size() < maxChunks) {
+                        long end = chunkEnd(channel, start, size);
+                        if (end - start > Integer.MAX_VALUE) {
+                            throw new IOException(
+                                    "Line of more than 2 GB at byte " + start
+                                            + " of " + inputPath);
+                        }
+                        ByteBuffer bytes = channel.map(
+                                FileChannel.MapMode.READ_ONLY, start,
+                                end - start);
+                        chunks.add(executor.submit(() -> checkChunk(bytes)));
+                        start = end;
+                    }
+                    Chunk chunk = getChunk(chunks.remove());
+                    chunk.output.writeTo(output);
+                    writeReport(report, chunk, lines);
+                    lines += chunk.lines;
+                    errors += chunk.errors;
+                }
+                return errors;
+            } finally {
+                output.close();
+                batchSpellChecker.recordOutput(output);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * getChunk waits for a chunk to be checked, throwing the IOException it
+     * failed with, if any.
+     * @param future
+     * @return Chunk
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    static Chunk getChunk(Future<Chunk> future)
+            throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Check the files given as arguments, one after the other:
+     * [-workers n] [-chunk kb] [-policy top|keep|mark]
+     * [-output buffered|async|durable] [-report full|brief]
+     * [-dictionary path] file...
+     * @param args
+     */
+    public static void main(String[] args) {
+        String dictionaryPath = "engDictionary.txt";
+        CorrectionPolicy policy = CorrectionPolicy.TOP_SUGGESTION;
+        int workers = 0;
+        int chunkBytes = DEFAULT_CHUNK_BYTES;
+        String output = "buffered";
+        boolean reportSuggestions = true;
+        int i = 0;
+        try {
+            for (; i < args.length && args[i].startsWith("-"); i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException(
+                            "Missing value for " + args[i]);
+                }
+                if (args[i].equals("-workers")) {
+                    workers = Integer.parseInt(args[i + 1]);
+                } else if (args[i].equals("-chunk")) {
+                    chunkBytes = Integer.parseInt(args[i + 1]) * 1024;
+                } else if (args[i].equals("-policy")) {
+                    policy = CorrectionPolicy.fromName(args[i + 1]);
+                } else if (args[i].equals("-output")
+                        && args[i + 1].matches("buffered|async|durable")) {
+                    output = args[i + 1];
+                } else if (args[i].equals("-report")
+                        && args[i + 1].matches("full|brief")) {
+                    reportSuggestions = args[i + 1].equals("full");
+                } else if (args[i].equals("-dictionary")) {
+                    dictionaryPath = args[i + 1];
+                } else {
+                    throw new IllegalArgumentException(
+                            "Unknown option " + args[i]);
+                }
+            }
+            if (workers < 0 || chunkBytes <= 0) {
+                throw new IllegalArgumentException(
+                        "Expected workers >= 0 and chunk > 0");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println("Usage: ChunkedSpellChecker [-workers n]"
+                    + " [-chunk kb] [-policy top|keep|mark]"
+                    + " [-output buffered|async|durable]"
+                    + " [-report full|brief] [-dictionary path] file...");
+            System.exit(2);
+        }
+
+        ChunkedSpellChecker chunkedSpellChecker;
+        try {
+            chunkedSpellChecker = new ChunkedSpellChecker(
+                    new WordRecommender(dictionaryPath), policy, workers)
+                            .setChunkBytes(chunkBytes)
+                            .setAsyncOutput(!output.equals("buffered"),
+                                    output.equals("durable"))
+                            .setReportSuggestions(reportSuggestions);
+        } catch (IOException e) {
+            System.out.println("File operation error: " + e.toString());
+            System.exit(1);
+            return;
+        }
+        int failed = 0;
+        for (; i < args.length; i++) {
+            try {
+                long errors = chunkedSpellChecker.check(args[i]);
+                System.out.println(args[i] + ": " + errors + " errors");
+            } catch (IOException | InterruptedException e) {
+                System.out.println("File operation error: " + e.toString());
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}
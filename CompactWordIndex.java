@@ -0,0 +1,172 @@
+/**
+ * @author Claire Jiasin Lua CompactWordIndex class keeps the dictionary words
+ *         in primitive arrays instead of Strings: the UTF-8 bytes of all the
+ *         words packed in one byte array, the offset of each word in it, and
+ *         an open addressing hash table of word ids keyed on
+ *         String.hashCode(). It takes a fraction of the memory of a
+ *         HeapWordIndex, and orders the words the same way.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+class CompactWordIndex implements WordIndex {
+    // The word with id i is bytes[offsets[i]] to bytes[offsets[i + 1] - 1].
+    final byte[] bytes;
+    final int[] offsets;
+    // String.hashCode() and CharSignature of each word.
+    final int[] hashes;
+    final long[] signatures;
+    // Id of the first word of each length, as in HeapWordIndex.
+    final int[] lengthOffsets;
+    // Word id + 1 in each slot, 0 for an empty slot; at most half full.
+    final int[] table;
+    final int tableMask;
+
+    /**
+     * CompactWordIndex constructor sorts the words by length, then
+     * alphabetically, drops duplicates and packs them.
+     *
+     * @param words
+     * @return
+     */
+    CompactWordIndex(Collection<String> words) {
+        String[] sorted = words.toArray(new String[0]);
+        Arrays.sort(sorted, new Comparator<String>() {
+            public int compare(String a, String b) {
+                if (a.length() != b.length()) {
+                    return Integer.compare(a.length(), b.length());
+                }
+                return a.compareTo(b);
+            }
+        });
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (count == 0 || !sorted[i].equals(sorted[count - 1])) {
+                sorted[count++] = sorted[i];
+            }
+        }
+
+        int maxLength = count == 0 ? 0 : sorted[count - 1].length();
+        lengthOffsets = new int[maxLength + 2];
+        offsets = new int[count + 1];
+        hashes = new int[count];
+        signatures = new long[count];
+        byte[] packed = new byte[Math.max(16, count * 8)];
+        int size = 0;
+        for (int id = 0; id < count; id++) {
+            String word = sorted[id];
+            lengthOffsets[word.length() + 1]++;
+            byte[] encoded = word.getBytes(StandardCharsets.UTF_8);
+            if (size + encoded.length > packed.length) {
+                packed = Arrays.copyOf(packed,
+                        Math.max(packed.length * 2, size + encoded.length));
+            }
+            System.arraycopy(encoded, 0, packed, size, encoded.length);
+            size += encoded.length;
+            offsets[id + 1] = size;
+            hashes[id] = word.hashCode();
+            signatures[id] = CharSignature.of(word);
+        }
+        bytes = Arrays.copyOf(packed, size);
+        for (int i = 1; i < lengthOffsets.length; i++) {
+            lengthOffsets[i] += lengthOffsets[i - 1];
+        }
+
+        table = new int[Math.max(16, Integer.highestOneBit(
+                Math.max(1, count) * 2 - 1) << 1)];
+        tableMask = table.length - 1;
+        for (int id = 0; id < count; id++) {
+            int slot = slot(hashes[id]);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & tableMask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    /**
+     * slot returns the first table slot to probe for a hash code.
+     *
+     * @param hash
+     * @return int
+     */
+    int slot(int hash) {
+        hash *= 0x9e3779b9;
+        return (hash ^ (hash >>> 16)) & tableMask;
+    }
+
+    /**
+     * matches checks whether a word is the word with the given id, comparing
+     * ASCII chars to the bytes directly.
+     *
+     * @param word
+     * @param id
+     * @return boolean
+     */
+    boolean matches(String word, int id) {
+        int offset = offsets[id];
+        int end = offsets[id + 1];
+        // UTF-8 never takes fewer bytes than there are chars.
+        if (end - offset < word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c >= 0x80) {
+                return word.equals(word(id));
+            }
+            if (offset == end || bytes[offset++] != c) {
+                return false;
+            }
+        }
+        return offset == end;
+    }
+
+    public int size() {
+        return hashes.length;
+    }
+
+    public boolean contains(String word) {
+        int hash = word.hashCode();
+        int slot = slot(hash);
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && matches(word, id)) {
+                return true;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+        return false;
+    }
+
+    public String word(int id) {
+        return new String(bytes, offsets[id], offsets[id + 1] - offsets[id],
+                StandardCharsets.UTF_8);
+    }
+
+    public long signature(int id) {
+        return signatures[id];
+    }
+
+    public int lengthStart(long length) {
+        if (length <= 0) {
+            return 0;
+        }
+        if (length >= lengthOffsets.length) {
+            return hashes.length;
+        }
+        return lengthOffsets[(int) length];
+    }
+
+    public long sizeInBytes() {
+        return WordIndex.arrayBytes(bytes.length, 1)
+                + WordIndex.arrayBytes(offsets.length, 4)
+                + WordIndex.arrayBytes(hashes.length, 4)
+                + WordIndex.arrayBytes(signatures.length, 8)
+                + WordIndex.arrayBytes(lengthOffsets.length, 4)
+                + WordIndex.arrayBytes(table.length, 4);
+    }
+}
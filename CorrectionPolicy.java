@@ -0,0 +1,56 @@
+/**
+ * @author Claire Jiasin Lua CorrectionPolicy enum lists the ways a misspelled
+ *         word can be corrected without asking the user.
+ */
+
+public enum CorrectionPolicy {
+    // Replace the word with its first suggestion, if it has one.
+    TOP_SUGGESTION,
+    // Accept the word as is.
+    KEEP_ORIGINAL,
+    // Keep the word but mark it, e.g. "teh" becomes "[teh?]".
+    MARK_INLINE;
+
+    /**
+     * getCorrectedWord returns the word to write in place of a misspelled
+     * word.
+     * 
+     * @param spellSuggestion
+     * @return String
+     */
+    public String getCorrectedWord(SpellSuggestion spellSuggestion) {
+        switch (this) {
+        case TOP_SUGGESTION:
+            if (spellSuggestion.getSuggestions().isEmpty()) {
+                return spellSuggestion.getOriginalWord();
+            }
+            return spellSuggestion.getSuggestion(0);
+        case MARK_INLINE:
+            return "[" + spellSuggestion.getOriginalWord() + "?]";
+        default:
+            return spellSuggestion.getOriginalWord();
+        }
+    }
+
+    /**
+     * fromName returns the policy for a command line name: top, keep or mark.
+     * 
+     * @param name
+     * @return CorrectionPolicy
+     * @throws IllegalArgumentException
+     */
+    public static CorrectionPolicy fromName(String name)
+            throws IllegalArgumentException {
+        switch (name) {
+        case "top":
+            return TOP_SUGGESTION;
+        case "keep":
+            return KEEP_ORIGINAL;
+        case "mark":
+            return MARK_INLINE;
+        default:
+            throw new IllegalArgumentException(
+                    "Unknown policy '" + name + "', use top, keep or mark.");
+        }
+    }
+}
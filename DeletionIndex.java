@@ -0,0 +1,296 @@
+/**
+ * @author Claire Jiasin Lua DeletionIndex class maps every word that can be
+ *         made by deleting up to maxDistance letters from a dictionary word
+ *         back to that word (the SymSpell approach). Two words within
+ *         maxDistance edits always share such a deletion, so the candidates
+ *         for a misspelled word are found by hash lookups of its own
+ *         deletions instead of a scan of the dictionary.
+ *
+ *         Deletions are stored by their 32-bit hash in sorted arrays: keys,
+ *         the offset of each key's word ids, and the word ids. A hash
+ *         collision only adds candidates, which are then checked with
+ *         EditDistance. The arrays can be saved to a file so that the index
+ *         is not rebuilt on every start.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.function.IntConsumer;
+
+public class DeletionIndex {
+    static final int MAGIC = 0x53504458; // "SPDX"
+    static final int VERSION = 1;
+
+    int maxDistance;
+    // Sorted hashes of the deletions; the ids of the words with deletion
+    // keys[k] are wordIds[offsets[k]] to wordIds[offsets[k + 1] - 1].
+    int[] keys;
+    int[] offsets;
+    int[] wordIds;
+    // Fingerprint of the dictionary the index was built from.
+    long dictionaryFingerprint;
+    long buildMillis;
+    boolean loaded = false;
+
+    /**
+     * @return
+     */
+    private DeletionIndex() {
+    }
+
+    /**
+     * deletions returns the word and every word made by deleting up to
+     * maxDistance of its letters.
+     *
+     * @param word
+     * @param maxDistance
+     * @return HashSet<String>
+     */
+    static HashSet<String> deletions(String word, int maxDistance) {
+        HashSet<String> result = new HashSet<String>();
+        result.add(word);
+        HashSet<String> current = result;
+        for (int distance = 1; distance <= maxDistance; distance++) {
+            HashSet<String> next = new HashSet<String>();
+            for (String deletion : current) {
+                for (int i = 0; i < deletion.length(); i++) {
+                    next.add(deletion.substring(0, i)
+                            + deletion.substring(i + 1));
+                }
+            }
+            result.addAll(next);
+            current = next;
+        }
+        return result;
+    }
+
+    /**
+     * fingerprint returns a hash of all the words of an index, in id order.
+     *
+     * @param wordIndex
+     * @return long
+     */
+    static long fingerprint(WordIndex wordIndex) {
+        long hash = wordIndex.size();
+        for (int id = 0; id < wordIndex.size(); id++) {
+            hash = hash * 1000003 + wordIndex.word(id).hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * build computes the deletions of every word of an index.
+     *
+     * @param wordIndex
+     * @param maxDistance
+     * @return DeletionIndex
+     */
+    static DeletionIndex build(WordIndex wordIndex, int maxDistance) {
+        long start = System.nanoTime();
+        // Each entry is a deletion hash in the high half and a word id in
+        // the low half, so sorting entries groups them by hash.
+        long[] entries = new long[wordIndex.size() * 4];
+        int entryCount = 0;
+        for (int id = 0; id < wordIndex.size(); id++) {
+            String word = wordIndex.word(id);
+            for (String deletion : deletions(word, maxDistance)) {
+                if (entryCount == entries.length) {
+                    entries = Arrays.copyOf(entries, entryCount * 2);
+                }
+                entries[entryCount++] =
+                        ((long) deletion.hashCode() << 32) | id;
+            }
+        }
+        Arrays.sort(entries, 0, entryCount);
+
+        DeletionIndex index = new DeletionIndex();
+        index.maxDistance = maxDistance;
+        index.keys = new int[entryCount];
+        index.offsets = new int[entryCount + 1];
+        index.wordIds = new int[entryCount];
+        int keyCount = 0;
+        int idCount = 0;
+        for (int i = 0; i < entryCount; i++) {
+            if (i > 0 && entries[i] == entries[i - 1]) {
+                continue;
+            }
+            int key = (int) (entries[i] >> 32);
+            if (keyCount == 0 || index.keys[keyCount - 1] != key) {
+                index.keys[keyCount] = key;
+                index.offsets[keyCount] = idCount;
+                keyCount++;
+            }
+            index.wordIds[idCount++] = (int) entries[i];
+        }
+        index.offsets[keyCount] = idCount;
+        index.keys = Arrays.copyOf(index.keys, keyCount);
+        index.offsets = Arrays.copyOf(index.offsets, keyCount + 1);
+        index.wordIds = Arrays.copyOf(index.wordIds, idCount);
+        index.dictionaryFingerprint = fingerprint(wordIndex);
+        index.buildMillis = (System.nanoTime() - start) / 1000000;
+        return index;
+    }
+
+    /**
+     * load reads an index saved by write. Returns null if the file was built
+     * for another dictionary or distance.
+     *
+     * @param fileName
+     * @param wordIndex
+     * @param maxDistance
+     * @return DeletionIndex
+     * @throws IOException
+     */
+    static DeletionIndex load(String fileName, WordIndex wordIndex,
+            int maxDistance) throws IOException {
+        long start = System.nanoTime();
+        long fingerprint = fingerprint(wordIndex);
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(fileName)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readInt() != maxDistance
+                    || in.readLong() != fingerprint) {
+                return null;
+            }
+            DeletionIndex index = new DeletionIndex();
+            index.maxDistance = maxDistance;
+            index.dictionaryFingerprint = fingerprint;
+            index.keys = readInts(in);
+            index.offsets = readInts(in);
+            index.wordIds = readInts(in);
+            index.loaded = true;
+            index.buildMillis = (System.nanoTime() - start) / 1000000;
+            return index;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * readInts reads an array written by writeInts.
+     *
+     * @param in
+     * @return int[]
+     * @throws IOException
+     */
+    static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    /**
+     * writeInts writes the length and the values of an array.
+     *
+     * @param out
+     * @param values
+     * @throws IOException
+     */
+    static void writeInts(DataOutputStream out, int[] values)
+            throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * write saves the index to a file.
+     *
+     * @param fileName
+     * @throws IOException
+     */
+    void write(String fileName) throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(fileName)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(maxDistance);
+            out.writeLong(dictionaryFingerprint);
+            writeInts(out, keys);
+            writeInts(out, offsets);
+            writeInts(out, wordIds);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * search calls found with the id of every word within maxDistance
+     * (Levenshtein) edits of word, at most maxDistance of the index. With
+     * WordFeatures, candidates whose lengths or letter counts are too far
+     * apart are rejected without reading them.
+     *
+     * @param wordIndex
+     * @param features  of the words of wordIndex, or null
+     * @param word
+     * @param maxDistance
+     * @param found
+     */
+    void search(WordIndex wordIndex, WordFeatures features, String word,
+            int maxDistance, IntConsumer found) {
+        if (maxDistance < 0) {
+            return;
+        }
+        int[] candidates = new int[16];
+        int candidateCount = 0;
+        for (String deletion : deletions(word, maxDistance)) {
+            int k = Arrays.binarySearch(keys, deletion.hashCode());
+            if (k < 0) {
+                continue;
+            }
+            for (int i = offsets[k]; i < offsets[k + 1]; i++) {
+                if (candidateCount == candidates.length) {
+                    candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                }
+                candidates[candidateCount++] = wordIds[i];
+            }
+        }
+        Arrays.sort(candidates, 0, candidateCount);
+        byte[] letterCounts =
+                features != null ? WordFeatures.letterCounts(word) : null;
+        for (int i = 0; i < candidateCount; i++) {
+            int id = candidates[i];
+            if (i > 0 && id == candidates[i - 1]) {
+                continue;
+            }
+            if (features != null && (Math.abs(features.lengths[id]
+                    - word.length()) > maxDistance
+                    || features.minEdits(id, letterCounts) > maxDistance)) {
+                continue;
+            }
+            if (EditDistance.levenshtein(word, wordIndex.word(id),
+                    maxDistance) <= maxDistance) {
+                found.accept(id);
+            }
+        }
+    }
+
+    /**
+     * @return long approximate size of the index in bytes
+     */
+    long sizeInBytes() {
+        return 4L * (keys.length + offsets.length + wordIds.length);
+    }
+
+    /**
+     * @return String size and build time of the index
+     */
+    public String toString() {
+        return String.format(
+                "distance %d: %d deletions, %d entries, %d bytes, %s in %d ms",
+                maxDistance, keys.length, wordIds.length, sizeInBytes(),
+                loaded ? "loaded" : "built", buildMillis);
+    }
+}
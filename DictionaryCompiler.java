@@ -0,0 +1,33 @@
+/**
+ * @author Claire Jiasin Lua DictionaryCompiler is a tool that compiles a text
+ *         dictionary, one word per line, into the binary format read by
+ *         MappedWordIndex. WordRecommender loads either kind of file.
+ */
+
+import java.io.IOException;
+
+public class DictionaryCompiler {
+
+    /**
+     * Compile a dictionary: DictionaryCompiler input.txt output.bin
+     * @param args
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println(
+                    "Usage: DictionaryCompiler input.txt output.bin");
+            System.exit(2);
+        }
+        try {
+            WordRecommender wordRecommender = new WordRecommender(args[0]);
+            WordIndex wordIndex = wordRecommender.snapshot.wordIndex;
+            long bytes = MappedWordIndex.write(wordIndex, args[1]);
+            System.out.println("Compiled "
+                    + wordRecommender.dictionaryWordsCount() + " words into "
+                    + args[1] + " (" + bytes + " bytes)");
+        } catch (IOException e) {
+            System.out.println("File operation error: " + e.toString());
+            System.exit(1);
+        }
+    }
+}
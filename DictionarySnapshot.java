@@ -0,0 +1,78 @@
+/**
+ * @author Claire Jiasin Lua DictionarySnapshot class bundles one version of
+ *         the dictionary words with the indexes built from them. Snapshots are
+ *         never modified: WordRecommender replaces its snapshot as a whole
+ *         when words are added or removed, so a lookup that started on one
+ *         snapshot sees the same words to the end.
+ */
+
+class DictionarySnapshot {
+    // Number of updates applied since the dictionary was loaded.
+    final long version;
+    final WordIndex wordIndex;
+    // wordIndex if it is an overlay of the words the indexes were built
+    // from, else null.
+    final OverlayWordIndex overlay;
+    // Trie of the words for the TRIE strategy, else null.
+    final DictionaryTrie trie;
+    // Deletions of the words for the SYMSPELL strategy, else null.
+    final DeletionIndex deletionIndex;
+    // Phonetic and keyboard candidates for the TARGETED strategy, else null.
+    final TargetedIndex targetedIndex;
+    // Fast rejection of words not in the dictionary, null if off.
+    final BloomFilter bloomFilter;
+    // Words column by column for the SimilarityKernel, null if off.
+    final LengthColumns lengthColumns;
+    // Lengths, signatures, ends and letter counts by id, null if off.
+    final WordFeatures features;
+
+    /**
+     * @param version
+     * @param wordIndex
+     * @param trie
+     * @param deletionIndex
+     * @param targetedIndex
+     * @param bloomFilter
+     * @param lengthColumns
+     * @param features
+     * @return
+     */
+    DictionarySnapshot(long version, WordIndex wordIndex, DictionaryTrie trie,
+            DeletionIndex deletionIndex, TargetedIndex targetedIndex,
+            BloomFilter bloomFilter, LengthColumns lengthColumns,
+            WordFeatures features) {
+        this.version = version;
+        this.wordIndex = wordIndex;
+        this.overlay = wordIndex instanceof OverlayWordIndex
+                ? (OverlayWordIndex) wordIndex
+                : null;
+        this.trie = trie;
+        this.deletionIndex = deletionIndex;
+        this.targetedIndex = targetedIndex;
+        this.bloomFilter = bloomFilter;
+        this.lengthColumns = lengthColumns;
+        this.features = features;
+    }
+
+    /**
+     * wordCount returns the number of dictionary words.
+     *
+     * @return int
+     */
+    int wordCount() {
+        return overlay != null ? overlay.wordCount() : wordIndex.size();
+    }
+
+    /**
+     * withWordIndex returns a snapshot of the same indexes over another
+     * index of the words they were built from, such as an overlay of them.
+     *
+     * @param version
+     * @param wordIndex
+     * @return DictionarySnapshot
+     */
+    DictionarySnapshot withWordIndex(long version, WordIndex wordIndex) {
+        return new DictionarySnapshot(version, wordIndex, trie, deletionIndex,
+                targetedIndex, bloomFilter, lengthColumns, features);
+    }
+}
@@ -0,0 +1,278 @@
+/**
+ * @author Claire Jiasin Lua DictionaryTrie class stores the dictionary words
+ *         in a radix trie laid out in flat arrays: the children of a node
+ *         are consecutive nodes sorted by their first character, and each
+ *         chain of nodes with a single child and no word is merged into one
+ *         node whose edge is labelled with all its characters. It finds every
+ *         word within an edit distance of a given word by walking the trie
+ *         with one row of the Levenshtein table per character, and stops
+ *         going down a branch as soon as no word below it can be close
+ *         enough.
+ */
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public class DictionaryTrie {
+    // Characters of the edge leading to each node (none for the root,
+    // node 0): labelChars[labelStart[n]] to
+    // labelChars[labelStart[n + 1] - 1].
+    char[] labelChars;
+    int[] labelStart;
+    // Children of node n are nodes firstChild[n] to
+    // firstChild[n] + childCount[n] - 1.
+    int[] firstChild;
+    int[] childCount;
+    // Id in the WordIndex of the word ending at each node, or -1.
+    int[] wordIds;
+    int nodeCount = 0;
+    int maxDepth = 0;
+    long buildMillis;
+
+    /**
+     * DictionaryTrie constructor builds the trie of all the words of an index,
+     * breadth first, from the words sorted alphabetically.
+     *
+     * @param wordIndex
+     * @return
+     */
+    DictionaryTrie(WordIndex wordIndex) {
+        long startTime = System.nanoTime();
+        int size = wordIndex.size();
+        String[] words = new String[size];
+        for (int id = 0; id < size; id++) {
+            words[id] = wordIndex.word(id);
+            maxDepth = Math.max(maxDepth, words[id].length());
+        }
+        int[] order = sortedIds(words);
+
+        int capacity = Math.max(16, size);
+        labelChars = new char[capacity];
+        labelStart = new int[capacity + 1];
+        firstChild = new int[capacity];
+        childCount = new int[capacity];
+        wordIds = new int[capacity];
+        // Range of sorted words below each node waiting in the queue, which
+        // holds nodes in the order they were created.
+        int[] rangeStart = new int[capacity];
+        int[] rangeEnd = new int[capacity];
+        int[] depths = new int[capacity];
+        nodeCount = 1;
+        int labelCount = 0;
+        rangeEnd[0] = size;
+        for (int node = 0; node < nodeCount; node++) {
+            int start = rangeStart[node];
+            int end = rangeEnd[node];
+            int depth = depths[node];
+            wordIds[node] = -1;
+            // Shorter words come first, so a word ending here is at start.
+            if (start < end && words[order[start]].length() == depth) {
+                wordIds[node] = order[start];
+                start++;
+            }
+            firstChild[node] = nodeCount;
+            while (start < end) {
+                String first = words[order[start]];
+                char c = first.charAt(depth);
+                int groupEnd = start + 1;
+                while (groupEnd < end
+                        && words[order[groupEnd]].charAt(depth) == c) {
+                    groupEnd++;
+                }
+                // The words of a group are sorted, so those of the first and
+                // last share what all of them share. The edge goes on while
+                // no word ends and all have the same next character.
+                String last = words[order[groupEnd - 1]];
+                int labelEnd = depth + 1;
+                while (first.length() > labelEnd
+                        && last.length() > labelEnd
+                        && first.charAt(labelEnd) == last.charAt(labelEnd)) {
+                    labelEnd++;
+                }
+                if (nodeCount == firstChild.length) {
+                    int larger = firstChild.length * 2;
+                    labelStart = Arrays.copyOf(labelStart, larger + 1);
+                    firstChild = Arrays.copyOf(firstChild, larger);
+                    childCount = Arrays.copyOf(childCount, larger);
+                    wordIds = Arrays.copyOf(wordIds, larger);
+                    rangeStart = Arrays.copyOf(rangeStart, larger);
+                    rangeEnd = Arrays.copyOf(rangeEnd, larger);
+                    depths = Arrays.copyOf(depths, larger);
+                }
+                if (labelCount + labelEnd - depth > labelChars.length) {
+                    labelChars = Arrays.copyOf(labelChars, Math.max(
+                            labelChars.length * 2, labelCount + labelEnd));
+                }
+                first.getChars(depth, labelEnd, labelChars, labelCount);
+                labelStart[nodeCount] = labelCount;
+                labelCount += labelEnd - depth;
+                rangeStart[nodeCount] = start;
+                rangeEnd[nodeCount] = groupEnd;
+                depths[nodeCount] = labelEnd;
+                nodeCount++;
+                childCount[node]++;
+                start = groupEnd;
+            }
+        }
+        labelStart[nodeCount] = labelCount;
+        labelChars = Arrays.copyOf(labelChars, labelCount);
+        labelStart = Arrays.copyOf(labelStart, nodeCount + 1);
+        firstChild = Arrays.copyOf(firstChild, nodeCount);
+        childCount = Arrays.copyOf(childCount, nodeCount);
+        wordIds = Arrays.copyOf(wordIds, nodeCount);
+        buildMillis = (System.nanoTime() - startTime) / 1000000;
+    }
+
+    /**
+     * sortedIds returns the ids of some words in alphabetical order of the
+     * words, sorting primitive ints rather than boxed ids.
+     *
+     * @param words
+     * @return int[]
+     */
+    static int[] sortedIds(String[] words) {
+        int[] order = new int[words.length];
+        for (int id = 0; id < order.length; id++) {
+            order[id] = id;
+        }
+        sortIds(order, words, new int[order.length], 0, order.length);
+        return order;
+    }
+
+    /**
+     * sortIds merge sorts ids from start to end - 1 by their words, using
+     * scratch for the merges.
+     *
+     * @param ids
+     * @param words
+     * @param scratch
+     * @param start
+     * @param end
+     */
+    static void sortIds(int[] ids, String[] words, int[] scratch, int start,
+            int end) {
+        if (end - start < 2) {
+            return;
+        }
+        int middle = (start + end) >>> 1;
+        sortIds(ids, words, scratch, start, middle);
+        sortIds(ids, words, scratch, middle, end);
+        if (words[ids[middle - 1]].compareTo(words[ids[middle]]) <= 0) {
+            return;
+        }
+        System.arraycopy(ids, start, scratch, start, end - start);
+        int left = start;
+        int right = middle;
+        for (int i = start; i < end; i++) {
+            if (right >= end || (left < middle && words[scratch[left]]
+                    .compareTo(words[scratch[right]]) <= 0)) {
+                ids[i] = scratch[left++];
+            } else {
+                ids[i] = scratch[right++];
+            }
+        }
+    }
+
+    /**
+     * search calls found with the id of every word within maxDistance
+     * (Levenshtein) edits of word.
+     *
+     * @param word
+     * @param maxDistance
+     * @param found
+     */
+    void search(String word, int maxDistance, IntConsumer found) {
+        if (maxDistance < 0) {
+            return;
+        }
+        int columns = word.length() + 1;
+        // rows[d] is the row of the table for the character at depth d.
+        int[][] rows = new int[maxDepth + 1][columns];
+        for (int i = 0; i < columns; i++) {
+            rows[0][i] = i;
+        }
+        if (rows[0][word.length()] <= maxDistance && wordIds[0] >= 0) {
+            found.accept(wordIds[0]);
+        }
+        searchChildren(0, 1, word, maxDistance, rows, found);
+    }
+
+    /**
+     * searchChildren fills the table rows of the edge of each child of a
+     * node and goes down the children that can still lead to a close enough
+     * word. The nodes inside an edge have no word, so an edge is left as
+     * soon as a row is too far.
+     *
+     * @param node
+     * @param depth       depth of the first character of the children
+     * @param word
+     * @param maxDistance
+     * @param rows
+     * @param found
+     */
+    void searchChildren(int node, int depth, String word, int maxDistance,
+            int[][] rows, IntConsumer found) {
+        int end = firstChild[node] + childCount[node];
+        for (int child = firstChild[node]; child < end; child++) {
+            int rowMin = 0;
+            int childDepth = depth;
+            for (int k = labelStart[child]; k < labelStart[child + 1]
+                    && rowMin <= maxDistance; k++) {
+                char c = labelChars[k];
+                int[] previous = rows[childDepth - 1];
+                int[] row = rows[childDepth];
+                row[0] = childDepth;
+                rowMin = row[0];
+                for (int i = 1; i < row.length; i++) {
+                    int cost = word.charAt(i - 1) == c ? 0 : 1;
+                    int value = Math.min(previous[i - 1] + cost,
+                            Math.min(previous[i], row[i - 1]) + 1);
+                    row[i] = value;
+                    rowMin = Math.min(rowMin, value);
+                }
+                childDepth++;
+            }
+            if (childDepth - depth < labelStart[child + 1]
+                    - labelStart[child]) {
+                // Left inside the edge.
+                continue;
+            }
+            int[] row = rows[childDepth - 1];
+            if (wordIds[child] >= 0 && row[row.length - 1] <= maxDistance) {
+                found.accept(wordIds[child]);
+            }
+            if (rowMin <= maxDistance && childCount[child] > 0) {
+                searchChildren(child, childDepth, word, maxDistance, rows,
+                        found);
+            }
+        }
+    }
+
+    /**
+     * @return int number of nodes in the trie
+     */
+    int size() {
+        return nodeCount;
+    }
+
+    /**
+     * @return long approximate size of the trie in bytes
+     */
+    long sizeInBytes() {
+        return WordIndex.arrayBytes(labelChars.length, 2)
+                + WordIndex.arrayBytes(labelStart.length, 4)
+                + WordIndex.arrayBytes(firstChild.length, 4)
+                + WordIndex.arrayBytes(childCount.length, 4)
+                + WordIndex.arrayBytes(wordIds.length, 4);
+    }
+
+    /**
+     * @return String nodes, edge characters and size of the trie, and its
+     *         build time; an uncompressed trie has a node per character
+     */
+    public String toString() {
+        return String.format(
+                "%d nodes for %d edge characters, %d bytes, built in %d ms",
+                nodeCount, labelChars.length, sizeInBytes(), buildMillis);
+    }
+}
@@ -0,0 +1,317 @@
+/**
+ * @author Claire Jiasin Lua DictionaryWatcher class keeps a WordRecommender
+ *         in sync with its dictionary file. A background thread waits for
+ *         the file to change, reads it, and applies only the words added to
+ *         or removed from it since the last read, so that words added
+ *         through WordRecommender.addWords() are kept.
+ *
+ *         When a text file only grew, with the bytes it ended with at the
+ *         last read still in place and ending a line, only the appended
+ *         lines are read. Any other change, and any change to a compiled
+ *         dictionary, reads the whole file.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Scanner;
+
+public class DictionaryWatcher implements AutoCloseable {
+    // Time given to the writer of the file to finish before it is read.
+    static final long SETTLE_MILLIS = 200;
+    // Bytes kept from the end of the file to recognize it when it grows.
+    static final int END_BYTES = 64;
+
+    WordRecommender wordRecommender;
+    String fileName;
+    Path path;
+    WatchService watchService;
+    Thread thread;
+    // Words of the file when it was last read.
+    HashSet<String> words;
+    // Length of the text file when it was last read, and its last bytes;
+    // null when the whole file has to be read, as for a compiled dictionary
+    // or after a failed update.
+    long readLength = 0;
+    byte[] readEnd = new byte[0];
+    volatile int updates = 0;
+    volatile Exception lastError = null;
+
+    /**
+     * DictionaryWatcher constructor reads the current words of the file.
+     *
+     * @param wordRecommender
+     * @param fileName
+     * @return
+     * @throws IOException
+     */
+    DictionaryWatcher(WordRecommender wordRecommender, String fileName)
+            throws IOException {
+        this.wordRecommender = wordRecommender;
+        this.fileName = fileName;
+        this.path = Paths.get(fileName).toAbsolutePath();
+        this.words = readAll();
+    }
+
+    /**
+     * start watches the directory of the file on a daemon thread.
+     *
+     * @throws IOException
+     */
+    void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        path.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(this::watch, "DictionaryWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * watch waits for changes to the file until the watcher is closed.
+     */
+    void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = isChanged(key);
+                key.reset();
+                if (!changed) {
+                    continue;
+                }
+                // Let the writer finish, and skip the events it caused.
+                Thread.sleep(SETTLE_MILLIS);
+                key = watchService.poll();
+                while (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                    key = watchService.poll();
+                }
+                reload();
+            }
+        } catch (InterruptedException e) {
+            return;
+        } catch (ClosedWatchServiceException e) {
+            return;
+        }
+    }
+
+    /**
+     * isChanged checks whether the events of a key concern the file.
+     *
+     * @param key
+     * @return boolean
+     */
+    boolean isChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || path.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * reload reads the file, or only its new lines if it was appended to,
+     * and applies the differences with its previous words to the
+     * WordRecommender. Returns false, keeping the previous words, if the
+     * file cannot be read or its words cannot be applied, so that the
+     * watcher keeps running and reads the whole file next time.
+     *
+     * @return boolean
+     */
+    boolean reload() {
+        try {
+            if (isAppended()) {
+                return readAppended();
+            }
+            HashSet<String> current = readAll();
+            ArrayList<String> added = new ArrayList<String>();
+            for (String word : current) {
+                if (!words.contains(word)) {
+                    added.add(word);
+                }
+            }
+            ArrayList<String> removed = new ArrayList<String>();
+            for (String word : words) {
+                if (!current.contains(word)) {
+                    removed.add(word);
+                }
+            }
+            if (wordRecommender.updateWords(added, removed)) {
+                updates++;
+            }
+            words = current;
+            lastError = null;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            lastError = e;
+            readEnd = null;
+            return false;
+        }
+    }
+
+    /**
+     * readAppended adds the words of the lines appended to the file since it
+     * was last read to the WordRecommender.
+     *
+     * @return boolean
+     * @throws IOException
+     */
+    boolean readAppended() throws IOException {
+        long offset = readLength;
+        byte[] bytes = readBytes(offset);
+        ArrayList<String> added = new ArrayList<String>();
+        for (String word : parseWords(bytes)) {
+            if (!words.contains(word)) {
+                added.add(word);
+            }
+        }
+        if (wordRecommender.addWords(added)) {
+            updates++;
+        }
+        words.addAll(added);
+        markRead(offset, bytes);
+        lastError = null;
+        return true;
+    }
+
+    /**
+     * readAll reads every word of the file, and where it ends.
+     *
+     * @return HashSet<String>
+     * @throws IOException
+     */
+    HashSet<String> readAll() throws IOException {
+        if (MappedWordIndex.isCompiled(fileName)) {
+            readEnd = null;
+            return WordRecommender.readWords(fileName);
+        }
+        byte[] bytes = readBytes(0);
+        HashSet<String> read = parseWords(bytes);
+        markRead(0, bytes);
+        return read;
+    }
+
+    /**
+     * isAppended checks whether the text file only grew since it was last
+     * read, after a whole line: it is longer and still has the same last
+     * bytes at the same place.
+     *
+     * @return boolean
+     * @throws IOException
+     */
+    boolean isAppended() throws IOException {
+        if (readEnd == null || (readEnd.length > 0
+                && readEnd[readEnd.length - 1] != '\n')) {
+            return false;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            if (file.length() <= readLength) {
+                return false;
+            }
+            byte[] end = new byte[readEnd.length];
+            file.seek(readLength - end.length);
+            file.readFully(end);
+            return Arrays.equals(end, readEnd);
+        }
+    }
+
+    /**
+     * readBytes reads the file from offset to its end.
+     *
+     * @param offset
+     * @return byte[]
+     * @throws IOException
+     */
+    byte[] readBytes(long offset) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            byte[] bytes = new byte[(int) (file.length() - offset)];
+            file.seek(offset);
+            file.readFully(bytes);
+            return bytes;
+        }
+    }
+
+    /**
+     * parseWords returns the lines of some bytes of a text dictionary, read
+     * as WordRecommender.readWords reads them.
+     *
+     * @param bytes
+     * @return HashSet<String>
+     */
+    static HashSet<String> parseWords(byte[] bytes) {
+        HashSet<String> read = new HashSet<String>();
+        Scanner sc = new Scanner(new ByteArrayInputStream(bytes));
+        while (sc.hasNextLine()) {
+            read.add(sc.nextLine());
+        }
+        sc.close();
+        return read;
+    }
+
+    /**
+     * markRead records that the file was read up to the end of the bytes
+     * read from offset.
+     *
+     * @param offset
+     * @param bytes
+     */
+    void markRead(long offset, byte[] bytes) {
+        byte[] previous = offset == 0 ? new byte[0] : readEnd;
+        int kept = (int) Math.min(END_BYTES, offset + bytes.length);
+        byte[] end = new byte[kept];
+        // The bytes read now, after those kept from the previous read.
+        int fromBytes = Math.min(kept, bytes.length);
+        int fromEnd = kept - fromBytes;
+        System.arraycopy(previous, previous.length - fromEnd, end, 0,
+                fromEnd);
+        System.arraycopy(bytes, bytes.length - fromBytes, end, fromEnd,
+                fromBytes);
+        readLength = offset + bytes.length;
+        readEnd = end;
+    }
+
+    /**
+     * getUpdates returns the number of changes of the file applied so far.
+     *
+     * @return int
+     */
+    public int getUpdates() {
+        return updates;
+    }
+
+    /**
+     * getLastError returns the error of the last failed read of the file, or
+     * null if the last read succeeded.
+     *
+     * @return Exception
+     */
+    public Exception getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Stop watching the file.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+}
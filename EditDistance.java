@@ -0,0 +1,170 @@
+/**
+ * @author Claire Jiasin Lua EditDistance class computes the Levenshtein and
+ *         Damerau-Levenshtein distances between two words, giving up as soon
+ *         as they are known to be over a maximum, and the Jaro-Winkler
+ *         similarity.
+ */
+
+class EditDistance {
+
+    /**
+     * levenshtein returns the number of insertions, deletions and
+     * substitutions needed to turn word1 into word2, or max + 1 if that is
+     * more than max.
+     *
+     * @param word1
+     * @param word2
+     * @param max
+     * @return int
+     */
+    static int levenshtein(String word1, String word2, int max) {
+        if (Math.abs(word1.length() - word2.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[word2.length() + 1];
+        int[] row = new int[word2.length() + 1];
+        for (int j = 0; j < previous.length; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= word1.length(); i++) {
+            row[0] = i;
+            int rowMin = i;
+            char c = word1.charAt(i - 1);
+            for (int j = 1; j < row.length; j++) {
+                int cost = c == word2.charAt(j - 1) ? 0 : 1;
+                row[j] = Math.min(previous[j - 1] + cost,
+                        Math.min(previous[j], row[j - 1]) + 1);
+                rowMin = Math.min(rowMin, row[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = row;
+            row = swap;
+        }
+        return Math.min(previous[word2.length()], max + 1);
+    }
+
+    /**
+     * damerauLevenshtein returns the number of insertions, deletions,
+     * substitutions and transpositions of adjacent characters needed to turn
+     * word1 into word2 (without editing a transposed pair again), or max + 1
+     * if that is more than max. Only the band of the table within max of its
+     * diagonal is computed.
+     *
+     * @param word1
+     * @param word2
+     * @param max
+     * @return int
+     */
+    static int damerauLevenshtein(String word1, String word2, int max) {
+        int length1 = word1.length();
+        int length2 = word2.length();
+        if (Math.abs(length1 - length2) > max) {
+            return max + 1;
+        }
+        int over = max + 1;
+        // Rows i - 2, i - 1 and i of the table.
+        int[] before = new int[length2 + 1];
+        int[] previous = new int[length2 + 1];
+        int[] row = new int[length2 + 1];
+        for (int j = 0; j <= length2; j++) {
+            previous[j] = Math.min(j, over);
+        }
+        int previousMin = 0;
+        for (int i = 1; i <= length1; i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(length2, i + max);
+            row[0] = Math.min(i, over);
+            row[from - 1] = from == 1 ? row[0] : over;
+            int rowMin = row[from - 1];
+            char c = word1.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = c == word2.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost,
+                        Math.min(previous[j], row[j - 1]) + 1);
+                if (i > 1 && j > 1 && c == word2.charAt(j - 2)
+                        && word1.charAt(i - 2) == word2.charAt(j - 1)) {
+                    value = Math.min(value, before[j - 2] + 1);
+                }
+                row[j] = Math.min(value, over);
+                rowMin = Math.min(rowMin, row[j]);
+            }
+            if (to < length2) {
+                row[to + 1] = over;
+            }
+            // A transposition can reach back one more row, at a cost of 1.
+            if (rowMin > max && previousMin >= max) {
+                return over;
+            }
+            previousMin = rowMin;
+            int[] swap = before;
+            before = previous;
+            previous = row;
+            row = swap;
+        }
+        return Math.min(previous[length2], over);
+    }
+
+    /**
+     * jaroWinkler returns the Jaro similarity of two words, from 0 to 1,
+     * raised for a common prefix of up to 4 characters.
+     *
+     * @param word1
+     * @param word2
+     * @return double
+     */
+    static double jaroWinkler(String word1, String word2) {
+        if (word1.equals(word2)) {
+            return 1;
+        }
+        int length1 = word1.length();
+        int length2 = word2.length();
+        if (length1 == 0 || length2 == 0) {
+            return 0;
+        }
+        int window = Math.max(0, Math.max(length1, length2) / 2 - 1);
+        boolean[] matched1 = new boolean[length1];
+        boolean[] matched2 = new boolean[length2];
+        int matches = 0;
+        for (int i = 0; i < length1; i++) {
+            int end = Math.min(length2, i + window + 1);
+            for (int j = Math.max(0, i - window); j < end; j++) {
+                if (!matched2[j] && word1.charAt(i) == word2.charAt(j)) {
+                    matched1[i] = true;
+                    matched2[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0;
+        }
+        int transpositions = 0;
+        int k = 0;
+        for (int i = 0; i < length1; i++) {
+            if (!matched1[i]) {
+                continue;
+            }
+            while (!matched2[k]) {
+                k++;
+            }
+            if (word1.charAt(i) != word2.charAt(k)) {
+                transpositions++;
+            }
+            k++;
+        }
+        double m = matches;
+        double jaro = (m / length1 + m / length2
+                + (m - transpositions / 2) / m) / 3;
+        int prefix = 0;
+        int maxPrefix = Math.min(4, Math.min(length1, length2));
+        while (prefix < maxPrefix
+                && word1.charAt(prefix) == word2.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * @author Claire Jiasin Lua HeapWordIndex class keeps the dictionary words as
+ *         Strings in a HashSet for lookups, and in an array sorted by length
+ *         (then alphabetically) for the suggestion scan.
+ */
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+
+class HeapWordIndex implements WordIndex {
+    final HashSet<String> dictionaryWords;
+    // Dictionary words ordered by length, so that the words of length n are
+    // wordsByLength[lengthOffsets[n]] to
+    // wordsByLength[lengthOffsets[n + 1] - 1].
+    final String[] wordsByLength;
+    final int[] lengthOffsets;
+    // CharSignature of each word in wordsByLength.
+    final long[] signatures;
+
+    /**
+     * HeapWordIndex constructor sorts the words by length into wordsByLength
+     * and records where each length starts in lengthOffsets.
+     * 
+     * @param words
+     * @return
+     */
+    HeapWordIndex(Collection<String> words) {
+        dictionaryWords = new HashSet<String>(words);
+        int maxLength = 0;
+        for (String word : dictionaryWords) {
+            maxLength = Math.max(maxLength, word.length());
+        }
+        lengthOffsets = new int[maxLength + 2];
+        for (String word : dictionaryWords) {
+            lengthOffsets[word.length() + 1]++;
+        }
+        for (int i = 1; i < lengthOffsets.length; i++) {
+            lengthOffsets[i] += lengthOffsets[i - 1];
+        }
+        wordsByLength = new String[dictionaryWords.size()];
+        int[] next = Arrays.copyOf(lengthOffsets, lengthOffsets.length);
+        for (String word : dictionaryWords) {
+            wordsByLength[next[word.length()]++] = word;
+        }
+        for (int i = 0; i < lengthOffsets.length - 1; i++) {
+            Arrays.sort(wordsByLength, lengthOffsets[i], lengthOffsets[i + 1]);
+        }
+        signatures = new long[wordsByLength.length];
+        for (int i = 0; i < wordsByLength.length; i++) {
+            signatures[i] = CharSignature.of(wordsByLength[i]);
+        }
+    }
+
+    public int size() {
+        return wordsByLength.length;
+    }
+
+    public boolean contains(String word) {
+        return dictionaryWords.contains(word);
+    }
+
+    public String word(int id) {
+        return wordsByLength[id];
+    }
+
+    public long signature(int id) {
+        return signatures[id];
+    }
+
+    public int lengthStart(long length) {
+        if (length <= 0) {
+            return 0;
+        }
+        if (length >= lengthOffsets.length) {
+            return wordsByLength.length;
+        }
+        return lengthOffsets[(int) length];
+    }
+
+    public long sizeInBytes() {
+        // A String is a 24 byte object and a byte array, one byte per char
+        // if all its chars are Latin-1, else two. A HashSet stores each in a
+        // 32 byte HashMap node, in a table at most 3/4 full.
+        long size = 0;
+        for (String word : wordsByLength) {
+            int charBytes = 1;
+            for (int i = 0; i < word.length(); i++) {
+                if (word.charAt(i) > 0xff) {
+                    charBytes = 2;
+                    break;
+                }
+            }
+            size += 24 + WordIndex.arrayBytes(word.length(), charBytes) + 32;
+        }
+        long buckets = Long.highestOneBit(
+                Math.max(16, (long) (wordsByLength.length / 0.75f) + 1) - 1)
+                << 1;
+        return size + WordIndex.arrayBytes(buckets, 4)
+                + WordIndex.arrayBytes(wordsByLength.length, 4)
+                + WordIndex.arrayBytes(signatures.length, 8)
+                + WordIndex.arrayBytes(lengthOffsets.length, 4);
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * @author Claire Jiasin Lua IdList class is a growable list of word ids,
+ *         which the candidate searches of the strategy indexes and the
+ *         suggestion pipelines collect ids in.
+ */
+
+import java.util.Arrays;
+
+class IdList {
+    int[] ids = new int[16];
+    int count = 0;
+
+    /**
+     * add an id at the end of the list.
+     *
+     * @param id
+     */
+    void add(int id) {
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, count * 2);
+        }
+        ids[count++] = id;
+    }
+
+    /**
+     * @return int[] the ids, in the order they were added
+     */
+    int[] toArray() {
+        return Arrays.copyOf(ids, count);
+    }
+}
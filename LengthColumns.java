@@ -0,0 +1,110 @@
+/**
+ * @author Claire Jiasin Lua LengthColumns class stores the characters of the
+ *         dictionary words for a SimilarityKernel: for each length, character
+ *         i of all the words of that length is in one run of bytes, so a
+ *         kernel can compare it for many words at once.
+ *
+ *         Only lengths up to MAX_LENGTH whose words are all Latin-1 (one byte
+ *         per character) are stored; the others are scored one by one.
+ */
+
+class LengthColumns {
+    // Match counts, up to twice the length, must fit in a byte.
+    static final int MAX_LENGTH = 63;
+
+    byte[] columns;
+    // Character i of word k of length n is
+    // columns[offsets[n] + i * counts[n] + k], if offsets[n] >= 0.
+    int[] offsets;
+    int[] counts;
+
+    /**
+     * LengthColumns constructor copies the words of an index column by
+     * column.
+     *
+     * @param wordIndex
+     * @return
+     */
+    LengthColumns(WordIndex wordIndex) {
+        offsets = new int[MAX_LENGTH + 1];
+        counts = new int[MAX_LENGTH + 1];
+        long size = 0;
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            int start = wordIndex.lengthStart(length);
+            counts[length] = wordIndex.lengthStart(length + 1) - start;
+            offsets[length] = -1;
+            if (isLatin1(wordIndex, start, start + counts[length])) {
+                offsets[length] = (int) size;
+                size += (long) length * counts[length];
+            }
+        }
+        columns = new byte[(int) size];
+        for (int length = 1; length <= MAX_LENGTH; length++) {
+            if (offsets[length] < 0) {
+                continue;
+            }
+            int start = wordIndex.lengthStart(length);
+            for (int k = 0; k < counts[length]; k++) {
+                String word = wordIndex.word(start + k);
+                for (int i = 0; i < length; i++) {
+                    columns[offsets[length] + i * counts[length] + k] =
+                            (byte) word.charAt(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * isLatin1 checks that the words with ids from start to end - 1 only have
+     * characters up to 0xff.
+     *
+     * @param wordIndex
+     * @param start
+     * @param end
+     * @return boolean
+     */
+    static boolean isLatin1(WordIndex wordIndex, int start, int end) {
+        for (int id = start; id < end; id++) {
+            if (encode(wordIndex.word(id)) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * encode returns the Latin-1 bytes of a word, or null if it has another
+     * character.
+     *
+     * @param word
+     * @return byte[]
+     */
+    static byte[] encode(String word) {
+        byte[] bytes = new byte[word.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = word.charAt(i);
+            if (c > 0xff) {
+                return null;
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    /**
+     * isStored checks whether the words of a length are stored.
+     *
+     * @param length
+     * @return boolean
+     */
+    boolean isStored(int length) {
+        return length <= MAX_LENGTH && offsets[length] >= 0;
+    }
+
+    /**
+     * @return long memory used by the characters
+     */
+    long sizeInBytes() {
+        return WordIndex.arrayBytes(columns.length, 1);
+    }
+}
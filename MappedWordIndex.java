@@ -0,0 +1,251 @@
+/**
+ * @author Claire Jiasin Lua MappedWordIndex class reads a compiled dictionary
+ *         file through a memory mapped buffer, so loading it does not parse
+ *         anything and the words stay off the Java heap.
+ * 
+ *         The file has, in big-endian order: the MAGIC and VERSION ints, the
+ *         number of words, the maximum word length n, n + 2 length offsets
+ *         (id of the first word of each length), word count + 1 byte offsets
+ *         of the words, padding to 8 bytes, one CharSignature long per word,
+ *         and the UTF-8 bytes of the words. Words are sorted by length, then
+ *         by their UTF-8 bytes.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+
+class MappedWordIndex implements WordIndex {
+    static final int MAGIC = 0x5350434B; // "SPCK"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    final ByteBuffer buffer;
+    final int wordCount;
+    final int maxLength;
+    // Positions of the sections in buffer.
+    final int lengthOffsetsStart;
+    final int byteOffsetsStart;
+    final int signaturesStart;
+    final int wordsStart;
+
+    /**
+     * MappedWordIndex constructor maps a file written by write().
+     * 
+     * @param fileName
+     * @return
+     * @throws IOException
+     */
+    MappedWordIndex(String fileName) throws IOException {
+        FileChannel channel =
+                FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        } finally {
+            channel.close();
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(fileName + " is not a compiled dictionary");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(fileName + " has unsupported dictionary"
+                    + " version " + buffer.getInt(4));
+        }
+        wordCount = buffer.getInt(8);
+        maxLength = buffer.getInt(12);
+        lengthOffsetsStart = HEADER_SIZE;
+        byteOffsetsStart = lengthOffsetsStart + 4 * (maxLength + 2);
+        signaturesStart = align(byteOffsetsStart + 4 * (wordCount + 1));
+        wordsStart = signaturesStart + 8 * wordCount;
+    }
+
+    /**
+     * align rounds a position up to a multiple of 8.
+     * 
+     * @param position
+     * @return int
+     */
+    static int align(int position) {
+        return (position + 7) & ~7;
+    }
+
+    /**
+     * isCompiled checks whether a file starts with MAGIC.
+     * 
+     * @param fileName
+     * @return boolean
+     * @throws IOException
+     */
+    static boolean isCompiled(String fileName) throws IOException {
+        DataInputStream in = new DataInputStream(new FileInputStream(fileName));
+        try {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * write compiles the words of an index into a file for MappedWordIndex.
+     * 
+     * @param index
+     * @param fileName
+     * @return long number of bytes written
+     * @throws IOException
+     */
+    static long write(WordIndex index, String fileName) throws IOException {
+        int count = index.size();
+        int maxLength = count == 0 ? 0 : index.word(count - 1).length();
+        byte[][] words = new byte[count][];
+        for (int length = 0; length <= maxLength; length++) {
+            int start = index.lengthStart(length);
+            int end = index.lengthStart(length + 1);
+            byte[][] bucket = new byte[end - start][];
+            for (int id = start; id < end; id++) {
+                bucket[id - start] =
+                        index.word(id).getBytes(StandardCharsets.UTF_8);
+            }
+            Arrays.sort(bucket, new Comparator<byte[]>() {
+                public int compare(byte[] a, byte[] b) {
+                    return Arrays.compareUnsigned(a, b);
+                }
+            });
+            System.arraycopy(bucket, 0, words, start, bucket.length);
+        }
+
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(fileName)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            out.writeInt(maxLength);
+            for (int length = 0; length <= maxLength + 1; length++) {
+                out.writeInt(index.lengthStart(length));
+            }
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] word : words) {
+                offset += word.length;
+                out.writeInt(offset);
+            }
+            while (out.size() % 8 != 0) {
+                out.writeByte(0);
+            }
+            for (byte[] word : words) {
+                out.writeLong(CharSignature
+                        .of(new String(word, StandardCharsets.UTF_8)));
+            }
+            for (byte[] word : words) {
+                out.write(word);
+            }
+            return out.size();
+        } finally {
+            out.close();
+        }
+    }
+
+    public int size() {
+        return wordCount;
+    }
+
+    /**
+     * compare compares a word to the word with the given id, by code points,
+     * which is the order of their UTF-8 bytes.
+     * 
+     * @param word
+     * @param id
+     * @return int negative if word comes first, 0 if equal, else positive
+     */
+    int compare(String word, int id) {
+        int offset = wordsStart + buffer.getInt(byteOffsetsStart + 4 * id);
+        int end = wordsStart + buffer.getInt(byteOffsetsStart + 4 * id + 4);
+        int i = 0;
+        while (i < word.length() && offset < end) {
+            int c = word.codePointAt(i);
+            i += Character.charCount(c);
+            int b = buffer.get(offset++) & 0xff;
+            int codePoint;
+            if (b < 0x80) {
+                codePoint = b;
+            } else if (b < 0xe0) {
+                codePoint = b & 0x1f;
+                codePoint = (codePoint << 6) | (buffer.get(offset++) & 0x3f);
+            } else if (b < 0xf0) {
+                codePoint = b & 0x0f;
+                codePoint = (codePoint << 6) | (buffer.get(offset++) & 0x3f);
+                codePoint = (codePoint << 6) | (buffer.get(offset++) & 0x3f);
+            } else {
+                codePoint = b & 0x07;
+                codePoint = (codePoint << 6) | (buffer.get(offset++) & 0x3f);
+                codePoint = (codePoint << 6) | (buffer.get(offset++) & 0x3f);
+                codePoint = (codePoint << 6) | (buffer.get(offset++) & 0x3f);
+            }
+            if (c != codePoint) {
+                return Integer.compare(c, codePoint);
+            }
+        }
+        if (i < word.length()) {
+            return 1;
+        }
+        return offset < end ? -1 : 0;
+    }
+
+    public boolean contains(String word) {
+        int low = lengthStart(word.length());
+        int high = lengthStart(word.length() + 1) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int result = compare(word, middle);
+            if (result == 0) {
+                return true;
+            }
+            if (result < 0) {
+                high = middle - 1;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return false;
+    }
+
+    public String word(int id) {
+        int offset = buffer.getInt(byteOffsetsStart + 4 * id);
+        byte[] bytes =
+                new byte[buffer.getInt(byteOffsetsStart + 4 * id + 4) - offset];
+        buffer.get(wordsStart + offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public long signature(int id) {
+        return buffer.getLong(signaturesStart + 8 * id);
+    }
+
+    public int lengthStart(long length) {
+        if (length <= 0) {
+            return 0;
+        }
+        if (length > maxLength) {
+            return wordCount;
+        }
+        return buffer.getInt(lengthOffsetsStart + 4 * (int) length);
+    }
+
+    public long sizeInBytes() {
+        // The mapped file, which is outside of the Java heap.
+        return buffer.capacity();
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ * @author Claire Jiasin Lua MetricsRegistry class holds named counters,
+ *         gauges and histograms that WordRecommender and SpellChecker update
+ *         when they are given one (see RecommenderOptions.setMetrics). Its
+ *         toString() is a report of all of them, and register() publishes
+ *         them as attributes of a JMX MBean, so that they can be read by
+ *         JConsole or any JMX collector while the program runs.
+ *
+ *         Histogram attributes are split into count, mean, p50, p90, p99,
+ *         p999 and max, for example "suggestions.nanos.p99".
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+public class MetricsRegistry implements DynamicMBean {
+    // Name the registry is published under by register().
+    static final String DEFAULT_OBJECT_NAME = "spellchecker:type=Metrics";
+    static final String[] HISTOGRAM_ATTRIBUTES =
+            { "count", "mean", "p50", "p90", "p99", "p999", "max" };
+
+    ConcurrentHashMap<String, LongAdder> counters =
+            new ConcurrentHashMap<String, LongAdder>();
+    ConcurrentHashMap<String, LongSupplier> gauges =
+            new ConcurrentHashMap<String, LongSupplier>();
+    ConcurrentHashMap<String, Histogram> histograms =
+            new ConcurrentHashMap<String, Histogram>();
+    final long startNanos = System.nanoTime();
+    ObjectName objectName = null;
+
+    /**
+     * counter returns the counter of a name, creating it at 0.
+     *
+     * @param name
+     * @return LongAdder
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * histogram returns the histogram of a name, creating it empty.
+     *
+     * @param name
+     * @return Histogram
+     */
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * gauge sets the function that reads the current value of a name.
+     *
+     * @param name
+     * @param value
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * gaugeIfAbsent sets the function of a name unless it already has one,
+     * for gauges that every user of the registry would register alike.
+     *
+     * @param name
+     * @param value
+     */
+    public void gaugeIfAbsent(String name, LongSupplier value) {
+        gauges.putIfAbsent(name, value);
+    }
+
+    /**
+     * getRate returns the count of a counter per second since the registry
+     * was created.
+     *
+     * @param name
+     * @return double
+     */
+    public double getRate(String name) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return counter(name).sum() / Math.max(seconds, 1e-9);
+    }
+
+    /**
+     * register publishes the registry in the platform MBean server under
+     * DEFAULT_OBJECT_NAME.
+     *
+     * @throws JMException
+     */
+    public void register() throws JMException {
+        register(DEFAULT_OBJECT_NAME);
+    }
+
+    /**
+     * register publishes the registry in the platform MBean server under an
+     * object name, such as "spellchecker:type=Metrics,name=batch".
+     *
+     * @param name
+     * @throws JMException
+     */
+    public synchronized void register(String name) throws JMException {
+        unregister();
+        ObjectName objectName = new ObjectName(name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                objectName);
+        this.objectName = objectName;
+    }
+
+    /**
+     * unregister removes the registry from the platform MBean server, if it
+     * was registered.
+     *
+     * @throws JMException
+     */
+    public synchronized void unregister() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer()
+                    .unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+
+    /**
+     * getValue returns the value of a counter, a gauge, or an attribute of
+     * a histogram, or null if there is no such metric.
+     *
+     * @param name
+     * @return Number
+     */
+    public Number getValue(String name) {
+        LongAdder counter = counters.get(name);
+        if (counter != null) {
+            return counter.sum();
+        }
+        LongSupplier gauge = gauges.get(name);
+        if (gauge != null) {
+            return gauge.getAsLong();
+        }
+        int dot = name.lastIndexOf('.');
+        Histogram histogram =
+                dot < 0 ? null : histograms.get(name.substring(0, dot));
+        if (histogram == null) {
+            return null;
+        }
+        switch (name.substring(dot + 1)) {
+        case "count":
+            return histogram.getCount();
+        case "mean":
+            return histogram.getMean();
+        case "p50":
+            return histogram.getPercentile(50);
+        case "p90":
+            return histogram.getPercentile(90);
+        case "p99":
+            return histogram.getPercentile(99);
+        case "p999":
+            return histogram.getPercentile(99.9);
+        case "max":
+            return histogram.getMax();
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * getAttribute returns the value of a metric for JMX.
+     *
+     * @param attribute
+     * @return Object
+     * @throws AttributeNotFoundException
+     */
+    public Object getAttribute(String attribute)
+            throws AttributeNotFoundException {
+        Number value = getValue(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+
+    /**
+     * @param attributes
+     * @return AttributeList the values of the metrics found
+     */
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            Number value = getValue(attribute);
+            if (value != null) {
+                list.add(new Attribute(attribute, value));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Metrics are read only.
+     *
+     * @param attribute
+     * @throws AttributeNotFoundException
+     */
+    public void setAttribute(Attribute attribute)
+            throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName()
+                + " is read only");
+    }
+
+    /**
+     * Metrics are read only.
+     *
+     * @param attributes
+     * @return AttributeList empty
+     */
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    /**
+     * There are no operations.
+     *
+     * @param actionName
+     * @param params
+     * @param signature
+     * @return Object
+     * @throws ReflectionException
+     */
+    public Object invoke(String actionName, Object[] params,
+            String[] signature) throws ReflectionException {
+        throw new ReflectionException(
+                new NoSuchMethodException(actionName));
+    }
+
+    /**
+     * getMBeanInfo lists the metrics that exist now as attributes.
+     *
+     * @return MBeanInfo
+     */
+    public MBeanInfo getMBeanInfo() {
+        ArrayList<MBeanAttributeInfo> attributes =
+                new ArrayList<MBeanAttributeInfo>();
+        for (String name : new TreeSet<String>(counters.keySet())) {
+            attributes.add(attributeInfo(name, "long", "Counter"));
+        }
+        for (String name : new TreeSet<String>(gauges.keySet())) {
+            attributes.add(attributeInfo(name, "long", "Gauge"));
+        }
+        for (String name : new TreeSet<String>(histograms.keySet())) {
+            for (String suffix : HISTOGRAM_ATTRIBUTES) {
+                attributes.add(attributeInfo(name + "." + suffix,
+                        suffix.equals("mean") ? "double" : "long",
+                        "Histogram " + suffix));
+            }
+        }
+        return new MBeanInfo(getClass().getName(), "Spell checker metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null,
+                new MBeanOperationInfo[0], null);
+    }
+
+    /**
+     * @param name
+     * @param type
+     * @param description
+     * @return MBeanAttributeInfo of a read only attribute
+     */
+    static MBeanAttributeInfo attributeInfo(String name, String type,
+            String description) {
+        return new MBeanAttributeInfo(name, type, description, true, false,
+                false);
+    }
+
+    /**
+     * @return String one line per metric, in order of name; counters are
+     *         followed by their rate per second
+     */
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        for (String name : new TreeSet<String>(counters.keySet())) {
+            report.append(String.format("%s: %d (%.1f/s)%n", name,
+                    counters.get(name).sum(), getRate(name)));
+        }
+        for (String name : new TreeSet<String>(gauges.keySet())) {
+            report.append(String.format("%s: %d%n", name,
+                    gauges.get(name).getAsLong()));
+        }
+        for (String name : new TreeSet<String>(histograms.keySet())) {
+            report.append(String.format("%s: %s%n", name,
+                    histograms.get(name)));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * @author Claire Jiasin Lua MultiFileSpellChecker class batch checks every
+ *         file of a directory on a pool of worker threads. All the workers
+ *         share one WordRecommender, and each file gets its own SpellChecker,
+ *         checked file and report.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+public class MultiFileSpellChecker {
+    BatchSpellChecker batchSpellChecker;
+    int workers;
+
+    /**
+     * MultiFileSpellChecker constructor
+     * @param wordRecommender dictionary shared by all workers
+     * @param policy          how to correct misspelled words
+     * @param workers         number of files checked at once, 0 for one
+     *                        per processor, on virtual threads when the JVM
+     *                        supports them
+     * @return
+     */
+    public MultiFileSpellChecker(WordRecommender wordRecommender,
+            CorrectionPolicy policy, int workers) {
+        this.batchSpellChecker = new BatchSpellChecker(wordRecommender, policy);
+        this.workers = workers;
+    }
+
+    /**
+     * getParallelism returns the number of files checked at once.
+     * @return int
+     */
+    int getParallelism() {
+        return workers > 0 ? workers
+                : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * newExecutor returns a pool of workers threads, or a virtual thread per
+     * task executor if workers is 0 and the JVM has virtual threads (Java
+     * 21+). Otherwise 0 means one thread per processor. checkDirectory
+     * limits the tasks running at once either way.
+     * @return ExecutorService
+     */
+    ExecutorService newExecutor() {
+        if (workers > 0) {
+            return Executors.newFixedThreadPool(workers);
+        }
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(getParallelism());
+        }
+    }
+
+    /**
+     * isInputFile checks that a file of the directory is not the output of an
+     * earlier check: a checked file, named by SpellChecker.getOutputPath, or
+     * a report.
+     * @param file
+     * @return boolean
+     */
+    static boolean isInputFile(File file) {
+        String name = file.getName();
+        if (!file.isFile() || name.endsWith(".report.tsv")) {
+            return false;
+        }
+        int dotIndex = name.lastIndexOf(".");
+        String fileName = dotIndex > 0 ? name.substring(0, dotIndex) : name;
+        return !fileName.endsWith("_chk");
+    }
+
+    /**
+     * checkDirectory checks the input files of a directory and prints the
+     * number of errors of each file, in file name order. At most
+     * getParallelism() files are open at once, however many threads the
+     * executor has.
+     * @param directory
+     * @return int number of files that could not be checked
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public int checkDirectory(File directory)
+            throws IOException, InterruptedException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException(directory + " is not a directory");
+        }
+        Arrays.sort(files);
+        ArrayList<File> inputs = new ArrayList<File>();
+        ArrayList<Future<Integer>> results = new ArrayList<Future<Integer>>();
+        ExecutorService executor = newExecutor();
+        Semaphore running = new Semaphore(getParallelism());
+        try {
+            for (File file : files) {
+                if (!isInputFile(file)) {
+                    continue;
+                }
+                String inputPath = file.getAbsolutePath();
+                inputs.add(file);
+                results.add(executor.submit(() -> {
+                    running.acquire();
+                    try {
+                        return batchSpellChecker.check(inputPath);
+                    } finally {
+                        running.release();
+                    }
+                }));
+            }
+            int failed = 0;
+            for (int i = 0; i < inputs.size(); i++) {
+                try {
+                    System.out.println(inputs.get(i) + ": "
+                            + results.get(i).get() + " errors");
+                } catch (ExecutionException e) {
+                    System.out.println(
+                            "File operation error: " + e.getCause().toString());
+                    failed++;
+                }
+            }
+            return failed;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Check the files of a directory:
+     * [-workers n] [-policy top|keep|mark] [-dictionary path] directory
+     * @param args
+     */
+    public static void main(String[] args) {
+        String dictionaryPath = "engDictionary.txt";
+        CorrectionPolicy policy = CorrectionPolicy.TOP_SUGGESTION;
+        int workers = 0;
+        int i = 0;
+        try {
+            for (; i < args.length && args[i].startsWith("-"); i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException(
+                            "Missing value for " + args[i]);
+                }
+                if (args[i].equals("-workers")) {
+                    workers = Integer.parseInt(args[i + 1]);
+                } else if (args[i].equals("-policy")) {
+                    policy = CorrectionPolicy.fromName(args[i + 1]);
+                } else if (args[i].equals("-dictionary")) {
+                    dictionaryPath = args[i + 1];
+                } else {
+                    throw new IllegalArgumentException(
+                            "Unknown option " + args[i]);
+                }
+            }
+            if (i != args.length - 1 || workers < 0) {
+                throw new IllegalArgumentException(
+                        "Expected one directory and workers >= 0");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println("Usage: MultiFileSpellChecker [-workers n]"
+                    + " [-policy top|keep|mark] [-dictionary path] directory");
+            System.exit(2);
+        }
+
+        try {
+            WordRecommender wordRecommender =
+                    new WordRecommender(dictionaryPath);
+            MultiFileSpellChecker multiFileSpellChecker =
+                    new MultiFileSpellChecker(wordRecommender, policy, workers);
+            if (multiFileSpellChecker.checkDirectory(new File(args[i])) > 0) {
+                System.exit(1);
+            }
+        } catch (IOException | InterruptedException e) {
+            System.out.println("File operation error: " + e.toString());
+            System.exit(1);
+        }
+    }
+}
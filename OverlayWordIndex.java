@@ -0,0 +1,193 @@
+/**
+ * @author Claire Jiasin Lua OverlayWordIndex class is a WordIndex of the
+ *         words of a base index, less some removed words, plus some added
+ *         ones. WordRecommender applies small updates with it, keeping the
+ *         indexes built from the base, and only rebuilds once the overlay
+ *         grows past RecommenderOptions.setMaxDictionaryDelta.
+ *
+ *         Base words keep their ids, removed or not, and lengthStart only
+ *         covers them. The added words have the ids from base.size() on, in
+ *         the order they were added: searches find them with findAdded and
+ *         drop the removed words from their results.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+class OverlayWordIndex implements WordIndex {
+    final WordIndex base;
+    // Words added, and their CharSignatures, by id - base.size().
+    final String[] added;
+    final long[] addedSignatures;
+    final HashSet<String> addedWords;
+    // Base words removed.
+    final HashSet<String> removed;
+
+    /**
+     * @param base
+     * @param added   words not in base
+     * @param removed words of base
+     * @return
+     */
+    OverlayWordIndex(WordIndex base, ArrayList<String> added,
+            HashSet<String> removed) {
+        this.base = base;
+        this.added = added.toArray(new String[0]);
+        this.addedWords = new HashSet<String>(added);
+        this.removed = removed;
+        addedSignatures = new long[this.added.length];
+        for (int i = 0; i < this.added.length; i++) {
+            addedSignatures[i] = CharSignature.of(this.added[i]);
+        }
+    }
+
+    /**
+     * update returns the overlay of a WordIndex, or of the base of an
+     * overlay, with some words removed and then some added, or null if that
+     * changes no word.
+     *
+     * @param wordIndex
+     * @param added
+     * @param removed
+     * @return OverlayWordIndex
+     */
+    static OverlayWordIndex update(WordIndex wordIndex,
+            Collection<String> added, Collection<String> removed) {
+        WordIndex base = wordIndex;
+        ArrayList<String> addedWords = new ArrayList<String>();
+        HashSet<String> removedWords = new HashSet<String>();
+        if (wordIndex instanceof OverlayWordIndex) {
+            OverlayWordIndex overlay = (OverlayWordIndex) wordIndex;
+            base = overlay.base;
+            addedWords.addAll(overlay.addedWords);
+            removedWords.addAll(overlay.removed);
+        }
+        HashSet<String> newWords = new HashSet<String>(addedWords);
+        boolean changed = false;
+        for (String word : removed) {
+            if (newWords.remove(word)) {
+                addedWords.remove(word);
+                changed = true;
+            } else if (base.contains(word)) {
+                changed |= removedWords.add(word);
+            }
+        }
+        for (String word : added) {
+            if (removedWords.remove(word)) {
+                changed = true;
+            } else if (!base.contains(word) && newWords.add(word)) {
+                addedWords.add(word);
+                changed = true;
+            }
+        }
+        return changed
+                ? new OverlayWordIndex(base, addedWords, removedWords)
+                : null;
+    }
+
+    /**
+     * deltaSize returns the number of words added and removed.
+     *
+     * @return int
+     */
+    int deltaSize() {
+        return added.length + removed.size();
+    }
+
+    /**
+     * wordCount returns the number of words, which size() overcounts by the
+     * removed words.
+     *
+     * @return int
+     */
+    int wordCount() {
+        return base.size() - removed.size() + added.length;
+    }
+
+    /**
+     * words returns every word of the overlay.
+     *
+     * @return ArrayList<String>
+     */
+    ArrayList<String> words() {
+        ArrayList<String> words = new ArrayList<String>(wordCount());
+        for (int id = 0; id < base.size(); id++) {
+            String word = base.word(id);
+            if (!removed.contains(word)) {
+                words.add(word);
+            }
+        }
+        for (String word : added) {
+            words.add(word);
+        }
+        return words;
+    }
+
+    /**
+     * findAdded calls found with the id of every added word that isCandidate
+     * accepts.
+     *
+     * @param isCandidate
+     * @param found
+     */
+    void findAdded(Predicate<String> isCandidate, IntConsumer found) {
+        for (int i = 0; i < added.length; i++) {
+            if (isCandidate.test(added[i])) {
+                found.accept(base.size() + i);
+            }
+        }
+    }
+
+    /**
+     * isRemoved checks whether the word with the given id was removed.
+     *
+     * @param id
+     * @return boolean
+     */
+    boolean isRemoved(int id) {
+        return id < base.size() && !removed.isEmpty()
+                && removed.contains(base.word(id));
+    }
+
+    public int size() {
+        return base.size() + added.length;
+    }
+
+    public boolean contains(String word) {
+        return addedWords.contains(word)
+                || (!removed.contains(word) && base.contains(word));
+    }
+
+    public String word(int id) {
+        return id < base.size() ? base.word(id) : added[id - base.size()];
+    }
+
+    public long signature(int id) {
+        return id < base.size() ? base.signature(id)
+                : addedSignatures[id - base.size()];
+    }
+
+    /**
+     * lengthStart of the base words only.
+     *
+     * @param length
+     * @return int
+     */
+    public int lengthStart(long length) {
+        return base.lengthStart(length);
+    }
+
+    public long sizeInBytes() {
+        // The added words as in a HeapWordIndex, and the removed ones in a
+        // HashSet.
+        long size = base.sizeInBytes() + new HeapWordIndex(addedWords)
+                .sizeInBytes();
+        for (String word : removed) {
+            size += 24 + WordIndex.arrayBytes(word.length(), 1) + 32;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * @author Claire Jiasin Lua PruningCounters class counts what happened to
+ *         the candidates of suggestion searches: skipped because their length
+ *         bounds their common percent below the minimum, rejected for too few
+ *         letters in common, skipped because their length bounds their
+ *         similarity below the current top n, or scored.
+ *
+ *         Each search counts in its own instance, which WordRecommender then
+ *         adds to its totals.
+ */
+
+public class PruningCounters {
+    long lengthPruned = 0;
+    long commonRejected = 0;
+    long similarityPruned = 0;
+    long scored = 0;
+
+    /**
+     * add the counts of another search.
+     *
+     * @param other
+     */
+    synchronized void add(PruningCounters other) {
+        lengthPruned += other.lengthPruned;
+        commonRejected += other.commonRejected;
+        similarityPruned += other.similarityPruned;
+        scored += other.scored;
+    }
+
+    /**
+     * copy returns a consistent copy of the counts.
+     *
+     * @return PruningCounters
+     */
+    synchronized PruningCounters copy() {
+        PruningCounters copy = new PruningCounters();
+        copy.add(this);
+        return copy;
+    }
+
+    /**
+     * @return long candidates skipped by the common percent length bound
+     */
+    public long getLengthPruned() {
+        return lengthPruned;
+    }
+
+    /**
+     * @return long candidates with a common percent below the minimum
+     */
+    public long getCommonRejected() {
+        return commonRejected;
+    }
+
+    /**
+     * @return long candidates skipped by the similarity length bound
+     */
+    public long getSimilarityPruned() {
+        return similarityPruned;
+    }
+
+    /**
+     * @return long candidates whose similarity was computed
+     */
+    public long getScored() {
+        return scored;
+    }
+
+    /**
+     * @return long all candidates
+     */
+    public long getCandidates() {
+        return lengthPruned + commonRejected + similarityPruned + scored;
+    }
+
+    /**
+     * @return String
+     */
+    public String toString() {
+        return String.format(
+                "%d candidates: %d length pruned, %d below common percent,"
+                        + " %d similarity pruned, %d scored",
+                getCandidates(), lengthPruned, commonRejected,
+                similarityPruned, scored);
+    }
+}
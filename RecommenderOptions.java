@@ -0,0 +1,145 @@
+/**
+ * @author Claire Jiasin Lua RecommenderOptions class holds the settings a
+ *         WordRecommender is built with. Setters return the options so they
+ *         can be chained.
+ */
+
+public class RecommenderOptions {
+    int cacheSize = WordRecommender.DEFAULT_CACHE_SIZE;
+    SuggestionStrategy strategy = SuggestionStrategy.SCAN;
+    int deletionDistance = 2;
+    String deletionIndexFile = null;
+    int bloomFilterBytes = 0;
+    boolean compactDictionary = false;
+    boolean vectorKernel = false;
+    boolean featureTable = false;
+    int maxDictionaryDelta = WordRecommender.DEFAULT_MAX_DICTIONARY_DELTA;
+    MetricsRegistry metrics = null;
+
+    /**
+     * setCacheSize sets the number of suggestion lists to cache, 0 for no
+     * caching.
+     * 
+     * @param cacheSize
+     * @return RecommenderOptions
+     */
+    public RecommenderOptions setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+        return this;
+    }
+
+    /**
+     * setStrategy sets how getWordSuggestions finds candidates.
+     * 
+     * @param strategy
+     * @return RecommenderOptions
+     */
+    public RecommenderOptions setStrategy(SuggestionStrategy strategy) {
+        this.strategy = strategy;
+        return this;
+    }
+
+    /**
+     * setDeletionDistance sets the maximum number of deletions in the
+     * DeletionIndex of the SYMSPELL strategy.
+     * 
+     * @param deletionDistance
+     * @return RecommenderOptions
+     */
+    public RecommenderOptions setDeletionDistance(int deletionDistance) {
+        this.deletionDistance = deletionDistance;
+        return this;
+    }
+
+    /**
+     * setDeletionIndexFile sets a file to load the DeletionIndex from. If the
+     * file is missing or was built for another dictionary, the index is built
+     * and saved to it.
+     * 
+     * @param deletionIndexFile
+     * @return RecommenderOptions
+     */
+    public RecommenderOptions setDeletionIndexFile(String deletionIndexFile) {
+        this.deletionIndexFile = deletionIndexFile;
+        return this;
+    }
+
+    /**
+     * setBloomFilterBytes puts a BloomFilter of at most this many bytes in
+     * front of isValidWord, 0 for none. A size that fits the CPU's L2 cache,
+     * such as 256 KB, keeps rejections from touching main memory.
+     * 
+     * @param bloomFilterBytes
+     * @return RecommenderOptions
+     */
+    public RecommenderOptions setBloomFilterBytes(int bloomFilterBytes) {
+        this.bloomFilterBytes = bloomFilterBytes;
+        return this;
+    }
+
+    /**
+     * setCompactDictionary loads a text dictionary into a CompactWordIndex,
+     * packed in primitive arrays, instead of Strings in a HashSet. Compiled
+     * dictionaries are always memory mapped.
+     * 
+     * @param compactDictionary
+     * @return RecommenderOptions
+     */
+    public RecommenderOptions setCompactDictionary(boolean compactDictionary) {
+        this.compactDictionary = compactDictionary;
+        return this;
+    }
+
+    /**
+     * setVectorKernel scores the scan with the VectorSimilarityKernel when it
+     * can be loaded (see SimilarityKernel), and one word at a time otherwise.
+     * The scores are the same either way.
+     * 
+     * @param vectorKernel
+     * @return RecommenderOptions
+     */
+    public RecommenderOptions setVectorKernel(boolean vectorKernel) {
+        this.vectorKernel = vectorKernel;
+        return this;
+    }
+
+    /**
+     * setFeatureTable builds a WordFeatures table with every dictionary load,
+     * which the scan and the TRIE and SYMSPELL strategies score candidates
+     * from, reading a word only when it may rank. It takes 54 bytes a
+     * word; the suggestions are the same either way.
+     * 
+     * @param featureTable
+     * @return RecommenderOptions
+     */
+    public RecommenderOptions setFeatureTable(boolean featureTable) {
+        this.featureTable = featureTable;
+        return this;
+    }
+
+    /**
+     * setMaxDictionaryDelta sets how many words addWords and removeWords may
+     * change before the indexes are rebuilt. Until then the changes are kept
+     * in an OverlayWordIndex, whose added words every search checks one by
+     * one; 0 rebuilds on every update.
+     * 
+     * @param maxDictionaryDelta
+     * @return RecommenderOptions
+     */
+    public RecommenderOptions setMaxDictionaryDelta(int maxDictionaryDelta) {
+        this.maxDictionaryDelta = maxDictionaryDelta;
+        return this;
+    }
+
+    /**
+     * setMetrics sets the registry the recommender, and the SpellCheckers
+     * using it, record their metrics in, null for none.
+     * 
+     * @param metrics
+     * @return RecommenderOptions
+     */
+    public RecommenderOptions setMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * @author Claire Jiasin Lua SimilarityKernel interface computes the
+ *         similarity metric of a word against a block of candidates of one
+ *         length at once, from the candidates' characters stored column by
+ *         column in LengthColumns.
+ *
+ *         The only implementation, VectorSimilarityKernel, uses the
+ *         incubating Vector API. It lives in the vector directory and is
+ *         compiled and run with --add-modules jdk.incubator.vector; load()
+ *         returns null when it is missing, and the scalar code is used.
+ */
+
+interface SimilarityKernel {
+    /**
+     * matches sets sums[k - from], for the candidates k = from to to - 1 of a
+     * length bucket, to the number of characters equal from the left plus
+     * the number equal from the right, which is twice getSimilarityMetric.
+     * Character i of candidate k is columns[offset + i * stride + k].
+     *
+     * @param word    the Latin-1 characters of the word
+     * @param columns
+     * @param offset
+     * @param stride
+     * @param length  length of the candidates
+     * @param from
+     * @param to
+     * @param sums
+     */
+    void matches(byte[] word, byte[] columns, int offset, int stride,
+            int length, int from, int to, byte[] sums);
+
+    /**
+     * load returns the VectorSimilarityKernel, or null if it was not compiled
+     * or the jdk.incubator.vector module is not available.
+     *
+     * @return SimilarityKernel
+     */
+    static SimilarityKernel load() {
+        try {
+            return (SimilarityKernel) Class.forName("VectorSimilarityKernel")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+}
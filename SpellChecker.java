@@ -2,22 +2,46 @@
  * @author Claire Jiasin Lua SpellChecker class puts together all the
  *         classes for the SpellChecker project. It has instance variables which
  *         are the WordRecommender, words from user input file, Spell
- *         Suggestions and scanners.
+ *         Suggestions and the tokenizer.
  */
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.concurrent.atomic.LongAdder;
 
 public class SpellChecker {
+    // Arguments of getWordSuggestions for misspelled words.
+    static final int MAX_LENGTH_DIFF = 2;
+    static final double MIN_COMMON_PERCENT = 0.7;
+    static final int TOP_N = 10;
+
     WordRecommender wordRecommender;
-    BufferedWriter output;
+    // Path of the input file, null when checking a Reader.
+    String inputPath;
+    // Suggestions of the misspelled words of the whole input, found by
+    // resolveSuggestions(), else null.
+    HashMap<String, ArrayList<String>> resolvedSuggestions = null;
+    Writer output;
     SpellSuggestion spellSuggestion;
-    Scanner lineScanner;
-    Scanner wordScanner;
+    WordTokenizer tokenizer;
+    // Position of the last word read: line and word on that line, from 1.
+    int lineNumber = 0;
+    int wordNumber = 0;
+    // Misspelled words found on the current line, -1 once it is counted.
+    int lineErrors = 0;
+    // Metrics of the WordRecommender, all null if it has none.
+    LongAdder tokens;
+    Histogram errorsPerLine;
+    Histogram nextErrorNanos;
 
     /**
      * getOutputPath returns output (checked file) file name and extension.
@@ -25,7 +49,7 @@ public class SpellChecker {
      * @param inputPath
      * @return String
      */
-    public String getOutputPath(String inputPath) {
+    public static String getOutputPath(String inputPath) {
         String fileName;
         String ext = "";
         if (inputPath.indexOf(".") > 0) {
@@ -47,13 +71,75 @@ public class SpellChecker {
      */
     public SpellChecker(WordRecommender wordRecommender, String inputPath)
             throws IOException {
+        this(wordRecommender, inputPath, new BufferedWriter(
+                new FileWriter(new File(getOutputPath(inputPath)))));
+    }
+
+    /**
+     * SpellChecker constructor writing the checked file to output, such as
+     * an AsyncFileWriter of getOutputPath(inputPath), which close() closes.
+     * @param wordRecommender
+     * @param inputPath path to the input file to spell check
+     * @param output
+     * @return
+     * @throws IOException
+     */
+    public SpellChecker(WordRecommender wordRecommender, String inputPath,
+            Writer output) throws IOException {
+        this(wordRecommender, inputPath, new InputStreamReader(
+                new FileInputStream(new File(inputPath))), output);
+    }
+
+    /**
+     * SpellChecker constructor reading the input file from input, already
+     * opened by the caller, which close() closes with output.
+     * @param wordRecommender
+     * @param inputPath path to the input file, read again by
+     *                  resolveSuggestions
+     * @param input
+     * @param output
+     * @return
+     */
+    SpellChecker(WordRecommender wordRecommender, String inputPath,
+            Reader input, Writer output) {
         this.wordRecommender = wordRecommender;
+        this.inputPath = inputPath;
+        this.output = output;
+        tokenizer = new WordTokenizer(input);
+        useMetrics();
+    }
+
+    /**
+     * SpellChecker constructor reading the text to check from input and
+     * writing the checked text to output, which close() closes.
+     * @param wordRecommender
+     * @param input
+     * @param output
+     * @return
+     */
+    public SpellChecker(WordRecommender wordRecommender, Reader input,
+            Writer output) {
+        this(wordRecommender, null, input, output);
+    }
 
-        File file = new File(inputPath);
-        FileWriter fileWriter =
-                new FileWriter(new File(getOutputPath(inputPath)));
-        output = new BufferedWriter(fileWriter);
-        lineScanner = new Scanner(file);
+    /**
+     * useMetrics looks up the metrics of the WordRecommender, if it has any.
+     */
+    void useMetrics() {
+        MetricsRegistry metrics = wordRecommender.getMetrics();
+        if (metrics != null) {
+            tokens = metrics.counter("spellChecker.tokens");
+            errorsPerLine = metrics.histogram("spellChecker.errorsPerLine");
+            nextErrorNanos = metrics.histogram("spellChecker.nextErrorNanos");
+            LongAdder allTokens = tokens;
+            Histogram allNanos = nextErrorNanos;
+            // Words checked per second spent in nextError, by all checkers:
+            // registered by the first one, as the metrics are shared.
+            metrics.gaugeIfAbsent("spellChecker.tokensPerSecond",
+                    () -> allNanos.getSum() == 0 ? 0
+                            : (long) (allTokens.sum() * 1e9
+                                    / allNanos.getSum()));
+        }
     }
 
     /**
@@ -63,13 +149,31 @@ public class SpellChecker {
      */
     void writeWord(String word) throws IOException {
         if (word.isEmpty()) {
-            if (!wordScanner.hasNext()) {
+            if (!tokenizer.hasNextWord()) {
                 output.append("\n");
             }
             return;
         }
         output.append(word);
-        if (wordScanner.hasNext()) {
+        writeSeparator();
+    }
+
+    /**
+     * Write the current word of the tokenizer to the file.
+     * @throws IOException
+     */
+    void writeCurrentWord() throws IOException {
+        output.write(tokenizer.buffer, tokenizer.wordStart,
+                tokenizer.wordLength);
+        writeSeparator();
+    }
+
+    /**
+     * Write a space if there is another word on the line, else a new line.
+     * @throws IOException
+     */
+    void writeSeparator() throws IOException {
+        if (tokenizer.hasNextWord()) {
             output.append(" ");
         } else {
             output.append("\n");
@@ -78,25 +182,28 @@ public class SpellChecker {
 
     /**
      * nextWordError() gets the next word in the input file and return
-     * SpellSuggestion if there is a mispelled word.
+     * SpellSuggestion if there is a mispelled word. Its suggestions are only
+     * searched for when they are asked for.
      * @return SpellSuggestion suggestion for the misspelled word
      * @throws IOException
      */
     SpellSuggestion nextWordError() throws IOException {
-        if (wordScanner == null) {
-            return null;
-        }
-        while (wordScanner.hasNext()) {
-            String nextWord = wordScanner.next();
+        while (tokenizer.nextWord()) {
+            String nextWord = tokenizer.word();
+            wordNumber++;
             if (wordRecommender.isValidWord(nextWord)) {
-                writeWord(nextWord);
+                writeCurrentWord();
+            } else if (resolvedSuggestions != null
+                    && resolvedSuggestions.containsKey(nextWord)) {
+                return new SpellSuggestion(nextWord,
+                        () -> new ArrayList<String>(
+                                resolvedSuggestions.get(nextWord)));
             } else {
-                ArrayList<String> suggestions = wordRecommender
-                        .getWordSuggestions(nextWord, 2, 0.7, 10);
-                return new SpellSuggestion(nextWord, suggestions);
+                return new SpellSuggestion(nextWord,
+                        () -> wordRecommender.getWordSuggestions(nextWord,
+                                MAX_LENGTH_DIFF, MIN_COMMON_PERCENT, TOP_N));
             }
         }
-        wordScanner.close();
         return null;
     }
 
@@ -108,19 +215,77 @@ public class SpellChecker {
      * @throws IOException
      */
     public SpellSuggestion nextError() throws IOException {
+        long start = nextErrorNanos != null ? System.nanoTime() : 0;
         while (true) {
             SpellSuggestion spellSuggestion = nextWordError();
             if (spellSuggestion != null) {
+                lineErrors++;
+                recordNextError(start);
                 return spellSuggestion;
             }
-            if (!lineScanner.hasNextLine()) {
+            if (tokens != null && lineNumber > 0 && lineErrors >= 0) {
+                tokens.add(wordNumber);
+                errorsPerLine.record(lineErrors);
+                lineErrors = -1;
+            }
+            if (!tokenizer.nextLine()) {
+                recordNextError(start);
                 return null;
             }
-            String nextLine = lineScanner.nextLine();
-            wordScanner = new Scanner(nextLine);
+            lineNumber++;
+            wordNumber = 0;
+            lineErrors = 0;
         }
     }
 
+    /**
+     * recordNextError records the time taken by a call of nextError, if
+     * there are metrics.
+     * @param start System.nanoTime() at the start of the call
+     */
+    void recordNextError(long start) {
+        if (nextErrorNanos != null) {
+            nextErrorNanos.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * resolveSuggestions reads the whole input file first, collects its
+     * distinct misspelled words and finds all their suggestions in one pass
+     * over the dictionary (see WordRecommender.getWordSuggestions of a
+     * collection), so that a typo repeated through the file is only looked
+     * up once. Call it before the first nextError, on a SpellChecker of an
+     * input file.
+     * @return int number of distinct misspelled words
+     * @throws IOException
+     */
+    public int resolveSuggestions() throws IOException {
+        if (inputPath == null) {
+            throw new IllegalStateException(
+                    "Only the input of a file can be read twice");
+        }
+        LinkedHashSet<String> misspelled = new LinkedHashSet<String>();
+        WordTokenizer reader = new WordTokenizer(new InputStreamReader(
+                new FileInputStream(new File(inputPath))));
+        try {
+            while (reader.nextLine()) {
+                while (reader.nextWord()) {
+                    String word = reader.word();
+                    // Not counted: the second pass checks every word again.
+                    if (!misspelled.contains(word)
+                            && !wordRecommender.isDictionaryWord(word)) {
+                        misspelled.add(word);
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        resolvedSuggestions = wordRecommender.getWordSuggestions(misspelled,
+                MAX_LENGTH_DIFF, MIN_COMMON_PERCENT, TOP_N);
+        return misspelled.size();
+    }
+
     /**
      * Set the correct word for the mispelled word.
      * @param word replacement word for the mis-spelled word.
@@ -130,12 +295,31 @@ public class SpellChecker {
         writeWord(word);
     }
 
+    /**
+     * getLineNumber returns the line number of the last word read, starting
+     * from 1.
+     * @return int
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * getWordNumber returns the position of the last word read on its line,
+     * starting from 1.
+     * @return int
+     */
+    public int getWordNumber() {
+        return wordNumber;
+    }
+
     /**
      * Close and write the file. Must call this function after nextError
      * returns null.
      * @throws IOException
      */
     public void close() throws IOException {
+        tokenizer.close();
         output.flush();
         output.close();
     }
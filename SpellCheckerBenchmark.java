@@ -0,0 +1,379 @@
+/**
+ * @author Claire Jiasin Lua SpellCheckerBenchmark class measures the hot
+ *         paths of WordRecommender and SpellChecker on a synthetic dictionary
+ *         and corpus generated from a fixed seed, so that runs are
+ *         reproducible offline and can be compared across changes.
+ *
+ *         Each benchmark is warmed up, then timed over several iterations;
+ *         the score is the mean number of operations per second with its
+ *         99.9% confidence error, like JMH's throughput mode.
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Random;
+
+public class SpellCheckerBenchmark {
+    // Letters weighted by their frequency in English text.
+    static final String LETTERS = "eeeeeeeeeeeeettttttttttaaaaaaaaoooooooo"
+            + "iiiiiiinnnnnnnsssssshhhhhhrrrrrrddddllllcccuuummmwwffggyypp"
+            + "bbvkjxqz";
+
+    int dictionarySize = 100000;
+    int corpusWords = 20000;
+    long seed = 42;
+    int warmupIterations = 3;
+    int iterations = 5;
+    long iterationMillis = 1000;
+
+    WordRecommender wordRecommender;
+    WordRecommender bloomRecommender;
+    WordRecommender compactRecommender;
+    WordRecommender vectorRecommender;
+    WordRecommender featureRecommender;
+    WordRecommender targetedRecommender;
+    WordRecommender trieRecommender;
+    WordRecommender metricsRecommender;
+    File corpusFile;
+    String[] validWords;
+    String[] invalidWords;
+    // Two-sided 99.9% Student's t for 1 to 10 degrees of freedom.
+    static final double[] STUDENT_T = { 636.62, 31.60, 12.92, 8.61, 6.87,
+            5.96, 5.41, 5.04, 4.78, 4.59 };
+
+    // Consumes benchmark results so the JIT cannot drop the work.
+    volatile long sink;
+
+    /**
+     * A benchmarked operation; run returns a value to consume.
+     */
+    interface Operation {
+        long run(int i) throws IOException;
+    }
+
+    /**
+     * randomWord returns a word of the given length from weighted letters.
+     *
+     * @param random
+     * @param length
+     * @return String
+     */
+    static String randomWord(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = LETTERS.charAt(random.nextInt(LETTERS.length()));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * misspell replaces one letter of a word.
+     *
+     * @param random
+     * @param word
+     * @return String
+     */
+    static String misspell(Random random, String word) {
+        char[] chars = word.toCharArray();
+        chars[random.nextInt(chars.length)] =
+                (char) ('a' + random.nextInt(26));
+        return new String(chars);
+    }
+
+    /**
+     * setUp writes the dictionary and the corpus to temporary files and loads
+     * the dictionary, without a suggestion cache.
+     *
+     * @throws IOException
+     */
+    void setUp() throws IOException {
+        Random random = new Random(seed);
+        LinkedHashSet<String> words = new LinkedHashSet<String>();
+        while (words.size() < dictionarySize) {
+            words.add(randomWord(random, 2 + random.nextInt(13)));
+        }
+        ArrayList<String> wordList = new ArrayList<String>(words);
+
+        File dictionaryFile = File.createTempFile("benchDictionary", ".txt");
+        dictionaryFile.deleteOnExit();
+        BufferedWriter writer =
+                new BufferedWriter(new FileWriter(dictionaryFile));
+        for (String word : wordList) {
+            writer.write(word);
+            writer.write("\n");
+        }
+        writer.close();
+
+        corpusFile = File.createTempFile("benchCorpus", ".txt");
+        corpusFile.deleteOnExit();
+        writer = new BufferedWriter(new FileWriter(corpusFile));
+        for (int i = 0; i < corpusWords; i++) {
+            String word = wordList.get(random.nextInt(wordList.size()));
+            // One word in ten is misspelled.
+            if (random.nextInt(10) == 0) {
+                word = misspell(random, word);
+            }
+            writer.write(word);
+            writer.write(i % 12 == 11 ? "\n" : " ");
+        }
+        writer.close();
+
+        validWords = new String[1024];
+        invalidWords = new String[1024];
+        for (int i = 0; i < validWords.length; i++) {
+            validWords[i] = wordList.get(random.nextInt(wordList.size()));
+            invalidWords[i] = randomWord(random, 16 + random.nextInt(4));
+        }
+        wordRecommender = new WordRecommender(dictionaryFile.getPath(), 0);
+        bloomRecommender = new WordRecommender(dictionaryFile.getPath(),
+                new RecommenderOptions().setCacheSize(0)
+                        .setBloomFilterBytes(256 * 1024));
+        compactRecommender = new WordRecommender(dictionaryFile.getPath(),
+                new RecommenderOptions().setCacheSize(0)
+                        .setCompactDictionary(true));
+        vectorRecommender = new WordRecommender(dictionaryFile.getPath(),
+                new RecommenderOptions().setCacheSize(0)
+                        .setVectorKernel(true));
+        featureRecommender = new WordRecommender(dictionaryFile.getPath(),
+                new RecommenderOptions().setCacheSize(0)
+                        .setFeatureTable(true));
+        targetedRecommender = new WordRecommender(dictionaryFile.getPath(),
+                new RecommenderOptions().setCacheSize(0)
+                        .setStrategy(SuggestionStrategy.TARGETED));
+        trieRecommender = new WordRecommender(dictionaryFile.getPath(),
+                new RecommenderOptions().setCacheSize(0)
+                        .setStrategy(SuggestionStrategy.TRIE));
+        metricsRecommender = new WordRecommender(dictionaryFile.getPath(),
+                new RecommenderOptions().setCacheSize(0)
+                        .setMetrics(new MetricsRegistry()));
+    }
+
+    /**
+     * measure runs an operation for warmup and measured iterations and prints
+     * its throughput.
+     *
+     * @param name
+     * @param operation
+     * @throws IOException
+     */
+    void measure(String name, Operation operation) throws IOException {
+        double[] scores = new double[iterations];
+        for (int iteration = -warmupIterations; iteration < iterations;
+                iteration++) {
+            long operations = 0;
+            long result = 0;
+            long start = System.nanoTime();
+            long end = start + iterationMillis * 1000000;
+            long now;
+            do {
+                result += operation.run((int) operations);
+                operations++;
+                now = System.nanoTime();
+            } while (now < end);
+            sink += result;
+            if (iteration >= 0) {
+                scores[iteration] = operations * 1e9 / (now - start);
+            }
+        }
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= iterations;
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        double error = Double.NaN;
+        if (iterations > 1) {
+            int degrees = iterations - 1;
+            double t = degrees <= STUDENT_T.length ? STUDENT_T[degrees - 1]
+                    : degrees <= 30 ? 3.65 : 3.29;
+            error = t * Math.sqrt(variance / degrees / iterations);
+        }
+        System.out.println(
+                String.format("%-32s thrpt %3d %14.3f \u00b1 %12.3f ops/s",
+                        name, iterations, mean, error));
+    }
+
+    /**
+     * measurePipeline measures getWordSuggestions through a pipeline and
+     * prints the time spent in each of its stages.
+     *
+     * @param name
+     * @param word
+     * @param pipeline
+     * @throws IOException
+     */
+    void measurePipeline(String name, String word,
+            SuggestionPipeline pipeline) throws IOException {
+        measure(name, i -> wordRecommender
+                .getWordSuggestions(word, 2, 0.7, 10, pipeline).size());
+        System.out.println("  " + pipeline);
+    }
+
+    /**
+     * checkCorpus spell checks the whole corpus, keeping every error.
+     *
+     * @param recommender
+     * @param withSuggestions whether to get the suggestions of every error
+     * @param twoPass         whether to resolve all suggestions first
+     * @param asyncOutput     whether to write with an AsyncFileWriter
+     * @return long number of errors, plus their suggestions if asked for
+     * @throws IOException
+     */
+    long checkCorpus(WordRecommender recommender, boolean withSuggestions,
+            boolean twoPass, boolean asyncOutput) throws IOException {
+        String outputPath = SpellChecker.getOutputPath(corpusFile.getPath());
+        SpellChecker spellChecker = new SpellChecker(recommender,
+                corpusFile.getPath(),
+                asyncOutput ? new AsyncFileWriter(outputPath)
+                        : new BufferedWriter(new FileWriter(outputPath)));
+        if (twoPass) {
+            spellChecker.resolveSuggestions();
+        }
+        long errors = 0;
+        SpellSuggestion suggestion = spellChecker.nextError();
+        while (suggestion != null) {
+            errors++;
+            if (withSuggestions) {
+                errors += suggestion.getSuggestions().size();
+            }
+            spellChecker.setCorrection(suggestion.getOriginalWord());
+            suggestion = spellChecker.nextError();
+        }
+        spellChecker.close();
+        new File(outputPath).delete();
+        return errors;
+    }
+
+    /**
+     * Run all benchmarks.
+     *
+     * @throws IOException
+     */
+    void run() throws IOException {
+        setUp();
+        System.out.println("Dictionary: "
+                + wordRecommender.dictionaryWordsCount() + " words, corpus: "
+                + corpusWords + " words, seed: " + seed);
+        System.out.println(String.format(
+                "Dictionary memory: %.1f bytes/word, compact: %.1f bytes/word",
+                wordRecommender.dictionaryBytesPerWord(),
+                compactRecommender.dictionaryBytesPerWord()));
+        final String shortWord = "teh";
+        final String longWord = "misspellingss";
+        final String noMatchWord = "qzxjqzxjqzxj";
+        measure("isValidWord.valid", i -> wordRecommender
+                .isValidWord(validWords[i & 1023]) ? 1 : 0);
+        measure("isValidWord.valid.compact", i -> compactRecommender
+                .isValidWord(validWords[i & 1023]) ? 1 : 0);
+        measure("isValidWord.invalid", i -> wordRecommender
+                .isValidWord(invalidWords[i & 1023]) ? 1 : 0);
+        measure("isValidWord.invalid.bloom", i -> bloomRecommender
+                .isValidWord(invalidWords[i & 1023]) ? 1 : 0);
+        System.out.println(
+                "Bloom filter: " + bloomRecommender.getBloomFilter());
+        measure("getSimilarityMetric", i -> (long) wordRecommender
+                .getSimilarityMetric(longWord, validWords[i & 1023]));
+        measure("getCommonPercent", i -> (long) (100 * wordRecommender
+                .getCommonPercent(longWord, validWords[i & 1023])));
+        measure("getWordSuggestions.short", i -> wordRecommender
+                .getWordSuggestions(shortWord, 2, 0.7, 10).size());
+        measure("getWordSuggestions.long", i -> wordRecommender
+                .getWordSuggestions(longWord, 2, 0.7, 10).size());
+        measure("getWordSuggestions.noMatch", i -> wordRecommender
+                .getWordSuggestions(noMatchWord, 2, 0.7, 10).size());
+        System.out.println(
+                "Pruning: " + wordRecommender.getPruningCounters());
+        measure("getWordSuggestions.short.features", i -> featureRecommender
+                .getWordSuggestions(shortWord, 2, 0.7, 10).size());
+        measure("getWordSuggestions.long.features", i -> featureRecommender
+                .getWordSuggestions(longWord, 2, 0.7, 10).size());
+        System.out.println(
+                "Pruning: " + featureRecommender.getPruningCounters());
+        measure("getWordSuggestions.short.targeted", i -> targetedRecommender
+                .getWordSuggestions(shortWord, 2, 0.7, 10).size());
+        measure("getWordSuggestions.long.targeted", i -> targetedRecommender
+                .getWordSuggestions(longWord, 2, 0.7, 10).size());
+        System.out.println(
+                "Targeted: " + targetedRecommender.getTargetedIndex());
+        measure("getWordSuggestions.long.trie", i -> trieRecommender
+                .getWordSuggestions(longWord, 2, 0.7, 10).size());
+        System.out.println("Trie: " + trieRecommender.getTrie());
+        measurePipeline("pipeline.similarityMetric", longWord,
+                new SuggestionPipeline());
+        measurePipeline("pipeline.damerauLevenshtein", longWord,
+                new SuggestionPipeline()
+                        .setFilter(SuggestionPipeline.ACCEPT_ALL)
+                        .setScorer(SuggestionPipeline.damerauLevenshtein(2)));
+        measurePipeline("pipeline.jaroWinkler", longWord,
+                new SuggestionPipeline()
+                        .setScorer(SuggestionPipeline.JARO_WINKLER));
+        if (vectorRecommender.isVectorized()) {
+            measure("getWordSuggestions.short.vector", i -> vectorRecommender
+                    .getWordSuggestions(shortWord, 2, 0.7, 10).size());
+            measure("getWordSuggestions.long.vector", i -> vectorRecommender
+                    .getWordSuggestions(longWord, 2, 0.7, 10).size());
+        } else {
+            System.out.println("VectorSimilarityKernel not loaded, run with"
+                    + " --add-modules jdk.incubator.vector");
+        }
+        measure("SpellChecker.nextError.file",
+                i -> checkCorpus(wordRecommender, true, false, false));
+        measure("SpellChecker.nextError.errorOnly",
+                i -> checkCorpus(wordRecommender, false, false, false));
+        measure("SpellChecker.nextError.twoPass",
+                i -> checkCorpus(wordRecommender, true, true, false));
+        measure("SpellChecker.nextError.async",
+                i -> checkCorpus(wordRecommender, false, false, true));
+        measure("isValidWord.valid.metrics", i -> metricsRecommender
+                .isValidWord(validWords[i & 1023]) ? 1 : 0);
+        measure("getWordSuggestions.long.metrics", i -> metricsRecommender
+                .getWordSuggestions(longWord, 2, 0.7, 10).size());
+        measure("SpellChecker.nextError.metrics",
+                i -> checkCorpus(metricsRecommender, true, false, false));
+        System.out.print("Metrics:\n" + metricsRecommender.getMetrics());
+    }
+
+    /**
+     * Run the benchmarks:
+     * [-words n] [-corpus n] [-seed n] [-iterations n] [-millis n]
+     * @param args
+     */
+    public static void main(String[] args) {
+        SpellCheckerBenchmark benchmark = new SpellCheckerBenchmark();
+        try {
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                long value = Long.parseLong(args[i + 1]);
+                if (args[i].equals("-words")) {
+                    benchmark.dictionarySize = (int) value;
+                } else if (args[i].equals("-corpus")) {
+                    benchmark.corpusWords = (int) value;
+                } else if (args[i].equals("-seed")) {
+                    benchmark.seed = value;
+                } else if (args[i].equals("-iterations")) {
+                    benchmark.iterations = (int) value;
+                } else if (args[i].equals("-millis")) {
+                    benchmark.iterationMillis = value;
+                } else {
+                    throw new IllegalArgumentException(
+                            "Unknown option " + args[i]);
+                }
+            }
+            benchmark.run();
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println("Usage: SpellCheckerBenchmark [-words n]"
+                    + " [-corpus n] [-seed n] [-iterations n] [-millis n]");
+            System.exit(2);
+        } catch (IOException e) {
+            System.out.println("File operation error: " + e.toString());
+            System.exit(1);
+        }
+    }
+}
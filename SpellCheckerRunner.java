@@ -86,10 +86,15 @@ public class SpellCheckerRunner {
      * Main function to run for spell checker.
      */
     public static void RunSpellChecker() {
+        WordRecommender wordRecommender;
+        try {
+            wordRecommender = new WordRecommender("engDictionary.txt");
+        } catch (IOException e) {
+            System.out.println("File operation error: " + e.toString());
+            return;
+        }
         while (true) {
             try {
-                WordRecommender wordRecommender =
-                        new WordRecommender("engDictionary.txt");
                 Scanner scanner = new Scanner(System.in);
                 System.out.println("Enter path to input file: ");
                 String inputPath = scanner.nextLine();
@@ -1,13 +1,20 @@
 import java.util.ArrayList;
+import java.util.function.Supplier;
 
 /**
  * @author Claire Jiasin Lua SpellSuggestion class handles methods related to
  *         the suggestions (i.e. suggested words) for a given word.
+ * 
+ *         The suggestions can be computed lazily: they are only searched for
+ *         the first time they are asked for, so callers that only need the
+ *         misspelled word do not pay for the search.
  */
 
 public class SpellSuggestion {
     String originalWord;
     ArrayList<String> suggestions;
+    // Computes the suggestions on first use; null once they are known.
+    Supplier<ArrayList<String>> supplier;
 
     /**
      * @param word
@@ -19,6 +26,20 @@ public class SpellSuggestion {
         this.suggestions = suggestions;
     }
 
+    /**
+     * SpellSuggestion constructor with suggestions computed the first time
+     * they are needed.
+     * 
+     * @param word
+     * @param supplier
+     * @return
+     */
+    public SpellSuggestion(String word,
+            Supplier<ArrayList<String>> supplier) {
+        this.originalWord = word;
+        this.supplier = supplier;
+    }
+
     /**
      * getOriginalWord returns the original word that is checked.
      * 
@@ -29,14 +50,28 @@ public class SpellSuggestion {
     }
 
     /**
-     * getSuggestions returns an ArrayList of suggestions.
+     * getSuggestions returns an ArrayList of suggestions, computing them if
+     * this is the first call.
      * 
      * @return ArrayList<String>
      */
-    public ArrayList<String> getSuggestions() {
+    public synchronized ArrayList<String> getSuggestions() {
+        if (supplier != null) {
+            suggestions = supplier.get();
+            supplier = null;
+        }
         return suggestions;
     }
 
+    /**
+     * hasSuggestions checks whether the suggestions have been computed.
+     * 
+     * @return boolean
+     */
+    public synchronized boolean hasSuggestions() {
+        return supplier == null;
+    }
+
     /**
      * prettyPrint takes the suggestions and returns a String which when printed
      * will have the list elements with a number in front of them.
@@ -60,7 +95,7 @@ public class SpellSuggestion {
      * @return String
      */
     public String toSuggestionsString() {
-        return prettyPrint(suggestions);
+        return prettyPrint(getSuggestions());
     }
 
     /**
@@ -71,6 +106,6 @@ public class SpellSuggestion {
      * @throws IndexOutOfBoundsException
      */
     public String getSuggestion(int index) throws IndexOutOfBoundsException {
-        return suggestions.get(index);
+        return getSuggestions().get(index);
     }
 }
@@ -0,0 +1,198 @@
+/**
+ * @author Claire Jiasin Lua SuggestionCache class is a bounded, thread-safe
+ *         cache of word suggestions. It is split in segments, each a
+ *         LinkedHashMap in access order with its own lock, and each segment
+ *         evicts its least recently used entry when it is full.
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SuggestionCache {
+    static final int SEGMENTS = 16;
+
+    /**
+     * Key of a cached suggestion list: the dictionary version and the
+     * arguments of getWordSuggestions.
+     */
+    static class Key {
+        long version;
+        String word;
+        int maxLengthDiff;
+        double minCommonPercent;
+        int topN;
+
+        Key(long version, String word, int maxLengthDiff,
+                double minCommonPercent, int topN) {
+            this.version = version;
+            this.word = word;
+            this.maxLengthDiff = maxLengthDiff;
+            this.minCommonPercent = minCommonPercent;
+            this.topN = topN;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key b = (Key) o;
+            return version == b.version && word.equals(b.word)
+                    && maxLengthDiff == b.maxLengthDiff
+                    && Double.compare(minCommonPercent,
+                            b.minCommonPercent) == 0
+                    && topN == b.topN;
+        }
+
+        public int hashCode() {
+            int hash = Long.hashCode(version);
+            hash = hash * 31 + word.hashCode();
+            hash = hash * 31 + maxLengthDiff;
+            hash = hash * 31 + Double.hashCode(minCommonPercent);
+            return hash * 31 + topN;
+        }
+    }
+
+    /**
+     * One segment of the cache; callers hold its lock.
+     */
+    class Segment extends LinkedHashMap<Key, ArrayList<String>> {
+        private static final long serialVersionUID = 1L;
+
+        int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        protected boolean removeEldestEntry(
+                Map.Entry<Key, ArrayList<String>> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    Segment[] segments;
+    LongAdder hits = new LongAdder();
+    LongAdder misses = new LongAdder();
+    LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity maximum number of suggestion lists kept
+     * @return
+     */
+    public SuggestionCache(int capacity) {
+        // Small caches use a single segment, so that they hold exactly
+        // capacity entries.
+        int count = capacity < SEGMENTS * 16 ? 1 : SEGMENTS;
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(
+                    capacity / count + (i < capacity % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * segment returns the segment of a key.
+     * 
+     * @param key
+     * @return Segment
+     */
+    Segment segment(Key key) {
+        int hash = key.hashCode();
+        return segments[((hash ^ (hash >>> 16)) & 0x7fffffff)
+                % segments.length];
+    }
+
+    /**
+     * get returns the cached suggestions for a key, or null.
+     * 
+     * @param key
+     * @return ArrayList<String>
+     */
+    ArrayList<String> get(Key key) {
+        Segment segment = segment(key);
+        ArrayList<String> suggestions;
+        synchronized (segment) {
+            suggestions = segment.get(key);
+        }
+        if (suggestions == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return suggestions;
+    }
+
+    /**
+     * put caches the suggestions for a key. The list must not be changed
+     * afterwards.
+     * 
+     * @param key
+     * @param suggestions
+     */
+    void put(Key key, ArrayList<String> suggestions) {
+        Segment segment = segment(key);
+        synchronized (segment) {
+            segment.put(key, suggestions);
+        }
+    }
+
+    /**
+     * Remove all cached suggestions.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return int number of cached suggestion lists
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return long number of lookups that found cached suggestions
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return long number of lookups that did not
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return long number of suggestion lists evicted to make room
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return String
+     */
+    public String toString() {
+        return String.format("%d entries, %d hits, %d misses, %d evictions",
+                size(), getHits(), getMisses(), getEvictions());
+    }
+}
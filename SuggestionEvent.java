@@ -0,0 +1,34 @@
+/**
+ * @author Claire Jiasin Lua SuggestionEvent class is the Java Flight
+ *         Recorder event of one getWordSuggestions call of a WordRecommender
+ *         with metrics, for one word or for a batch of words. Like every JFR
+ *         event it costs nothing unless a recording enables it, for example
+ *         with -XX:StartFlightRecording:settings=profile, and its duration is
+ *         the latency of the call.
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("spellchecker.WordSuggestions")
+@Label("Word Suggestions")
+@Category("Spell Checker")
+class SuggestionEvent extends Event {
+    // Null for a batch.
+    @Label("Word")
+    String word;
+    @Label("Words")
+    int words;
+    @Label("Maximum Length Difference")
+    int maxLengthDiff;
+    @Label("Minimum Common Percent")
+    double minCommonPercent;
+    @Label("Top N")
+    int topN;
+    @Label("Suggestions")
+    int suggestions;
+    @Label("Cached")
+    boolean cached;
+}
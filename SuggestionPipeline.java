@@ -0,0 +1,271 @@
+/**
+ * @author Claire Jiasin Lua SuggestionPipeline class finds suggestions in four
+ *         stages, each of which can be replaced: a Generator lists candidate
+ *         word ids, a cheap Filter drops most of them, a Scorer scores the
+ *         rest, and a Selector keeps the best. The time spent in each stage
+ *         is added up so that pipelines can be compared.
+ *
+ *         The default pipeline gives the same suggestions as
+ *         WordRecommender.getWordSuggestions with the SCAN strategy, without
+ *         its fused fast path.
+ */
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+public class SuggestionPipeline {
+    /**
+     * Generator lists the ids of the candidates for a word.
+     */
+    interface Generator {
+        int[] generate(DictionarySnapshot dictionary, String word,
+                int maxLengthDiff);
+    }
+
+    /**
+     * Filter cheaply rejects candidates before they are scored.
+     */
+    interface Filter {
+        boolean accept(WordIndex wordIndex, String word, long signature,
+                int id, double minCommonPercent);
+    }
+
+    /**
+     * Scorer scores a candidate, higher is better; NEGATIVE_INFINITY drops
+     * it.
+     */
+    interface Scorer {
+        double score(String word, String candidate);
+    }
+
+    /**
+     * Selector returns the topN best scored candidates, best first.
+     */
+    interface Selector {
+        ArrayList<String> select(WordIndex wordIndex, int[] ids,
+                double[] scores, int count, int topN, boolean debug);
+    }
+
+    // Every word within maxLengthDiff of the length of the word.
+    static final Generator LENGTH_WINDOW = (dictionary, word, d) -> {
+        WordIndex wordIndex = dictionary.wordIndex;
+        int start = wordIndex.lengthStart((long) word.length() - d);
+        int end = wordIndex.lengthStart((long) word.length() + d + 1);
+        IdList added = new IdList();
+        findAdded(dictionary, WordRecommender.withinLength(word, d), added);
+        int count = Math.max(0, end - start);
+        int[] ids = new int[count + added.count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = start + i;
+        }
+        System.arraycopy(added.ids, 0, ids, count, added.count);
+        return ids;
+    };
+
+    // The words within maxLengthDiff edits in the trie of the TRIE strategy,
+    // or LENGTH_WINDOW without it.
+    static final Generator TRIE = (dictionary, word, d) -> {
+        if (dictionary.trie == null) {
+            return LENGTH_WINDOW.generate(dictionary, word, d);
+        }
+        IdList ids = new IdList();
+        dictionary.trie.search(word, d, ids::add);
+        findAdded(dictionary, WordRecommender.withinEdits(word, d), ids);
+        return ids.toArray();
+    };
+
+    // The words within maxLengthDiff edits in the deletion index of the
+    // SYMSPELL strategy, or LENGTH_WINDOW beyond its distance.
+    static final Generator DELETIONS = (dictionary, word, d) -> {
+        DeletionIndex deletionIndex = dictionary.deletionIndex;
+        if (deletionIndex == null || d > deletionIndex.maxDistance) {
+            return LENGTH_WINDOW.generate(dictionary, word, d);
+        }
+        IdList ids = new IdList();
+        deletionIndex.search(dictionary.wordIndex, dictionary.features,
+                word, d, ids::add);
+        findAdded(dictionary, WordRecommender.withinEdits(word, d), ids);
+        return ids.toArray();
+    };
+
+    // At least minCommonPercent of the distinct letters in common.
+    static final Filter COMMON_PERCENT =
+            (wordIndex, word, signature, id, minCommonPercent) ->
+                    WordRecommender.getCommonPercent(wordIndex, word,
+                            signature, id) >= minCommonPercent;
+
+    static final Filter ACCEPT_ALL =
+            (wordIndex, word, signature, id, minCommonPercent) -> true;
+
+    // WordRecommender.getSimilarityMetric.
+    static final Scorer SIMILARITY_METRIC = WordRecommender::similarityMetric;
+
+    static final Scorer JARO_WINKLER = EditDistance::jaroWinkler;
+
+    // The topN best, ties going to the alphabetically first word.
+    static final Selector TOP_N =
+            (wordIndex, ids, scores, count, topN, debug) -> {
+                TopWordScores topWords = new TopWordScores(topN, wordIndex);
+                for (int i = 0; i < count; i++) {
+                    topWords.add(ids[i], scores[i]);
+                }
+                return topWords.getWords(debug);
+            };
+
+    /**
+     * damerauLevenshtein returns a Scorer of minus the Damerau-Levenshtein
+     * distance, dropping candidates more than maxDistance edits away.
+     *
+     * @param maxDistance
+     * @return Scorer
+     */
+    static Scorer damerauLevenshtein(int maxDistance) {
+        return (word, candidate) -> {
+            int distance = EditDistance.damerauLevenshtein(word, candidate,
+                    maxDistance);
+            return distance > maxDistance ? Double.NEGATIVE_INFINITY
+                    : -distance;
+        };
+    }
+
+    /**
+     * findAdded adds to ids the words added to a snapshot through its
+     * overlay that isCandidate accepts, which no index of the snapshot has.
+     *
+     * @param dictionary
+     * @param isCandidate
+     * @param ids
+     */
+    static void findAdded(DictionarySnapshot dictionary,
+            Predicate<String> isCandidate, IdList ids) {
+        if (dictionary.overlay != null) {
+            dictionary.overlay.findAdded(isCandidate, ids::add);
+        }
+    }
+
+    Generator generator = LENGTH_WINDOW;
+    Filter filter = COMMON_PERCENT;
+    Scorer scorer = SIMILARITY_METRIC;
+    Selector selector = TOP_N;
+
+    // Nanoseconds spent in each stage, and candidates in and out of them.
+    LongAdder generateNanos = new LongAdder();
+    LongAdder filterNanos = new LongAdder();
+    LongAdder scoreNanos = new LongAdder();
+    LongAdder selectNanos = new LongAdder();
+    LongAdder searches = new LongAdder();
+    LongAdder generated = new LongAdder();
+    LongAdder filtered = new LongAdder();
+    LongAdder scored = new LongAdder();
+
+    /**
+     * @param generator
+     * @return SuggestionPipeline
+     */
+    SuggestionPipeline setGenerator(Generator generator) {
+        this.generator = generator;
+        return this;
+    }
+
+    /**
+     * @param filter
+     * @return SuggestionPipeline
+     */
+    SuggestionPipeline setFilter(Filter filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    /**
+     * @param scorer
+     * @return SuggestionPipeline
+     */
+    SuggestionPipeline setScorer(Scorer scorer) {
+        this.scorer = scorer;
+        return this;
+    }
+
+    /**
+     * @param selector
+     * @return SuggestionPipeline
+     */
+    SuggestionPipeline setSelector(Selector selector) {
+        this.selector = selector;
+        return this;
+    }
+
+    /**
+     * suggest runs the four stages for a word on one dictionary snapshot.
+     *
+     * @param dictionary
+     * @param word
+     * @param maxLengthDiff
+     * @param minCommonPercent
+     * @param topN
+     * @param debug
+     * @return ArrayList<String>
+     */
+    ArrayList<String> suggest(DictionarySnapshot dictionary, String word,
+            int maxLengthDiff, double minCommonPercent, int topN,
+            boolean debug) {
+        WordIndex wordIndex = dictionary.wordIndex;
+        OverlayWordIndex overlay = dictionary.overlay;
+        long start = System.nanoTime();
+        int[] ids = generator.generate(dictionary, word, maxLengthDiff);
+
+        long generatedAt = System.nanoTime();
+        long signature = CharSignature.of(word);
+        int count = 0;
+        for (int id : ids) {
+            if (overlay != null && overlay.isRemoved(id)) {
+                continue;
+            }
+            if (filter.accept(wordIndex, word, signature, id,
+                    minCommonPercent)) {
+                ids[count++] = id;
+            }
+        }
+
+        long filteredAt = System.nanoTime();
+        double[] scores = new double[count];
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            double score = scorer.score(word, wordIndex.word(ids[i]));
+            if (score != Double.NEGATIVE_INFINITY) {
+                ids[kept] = ids[i];
+                scores[kept++] = score;
+            }
+        }
+
+        long scoredAt = System.nanoTime();
+        ArrayList<String> suggestions =
+                selector.select(wordIndex, ids, scores, kept, topN, debug);
+        long end = System.nanoTime();
+
+        generateNanos.add(generatedAt - start);
+        filterNanos.add(filteredAt - generatedAt);
+        scoreNanos.add(scoredAt - filteredAt);
+        selectNanos.add(end - scoredAt);
+        searches.increment();
+        generated.add(ids.length);
+        filtered.add(count);
+        scored.add(kept);
+        return suggestions;
+    }
+
+    /**
+     * @return String time spent in each stage, and the candidates left after
+     *         it
+     */
+    public String toString() {
+        return String.format(
+                "%d searches: generate %.1f ms (%d candidates),"
+                        + " filter %.1f ms (%d), score %.1f ms (%d),"
+                        + " select %.1f ms",
+                searches.sum(), generateNanos.sum() / 1e6, generated.sum(),
+                filterNanos.sum() / 1e6, filtered.sum(),
+                scoreNanos.sum() / 1e6, scored.sum(),
+                selectNanos.sum() / 1e6);
+    }
+}
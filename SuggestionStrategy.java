@@ -0,0 +1,23 @@
+/**
+ * @author Claire Jiasin Lua SuggestionStrategy enum lists the ways a
+ *         WordRecommender can find the candidates for getWordSuggestions.
+ *         Every strategy filters the candidates by common percent and ranks
+ *         them with the similarity metric.
+ */
+
+public enum SuggestionStrategy {
+    // Score every word within maxLengthDiff letters of the misspelled word.
+    SCAN,
+    // Only score the words within maxLengthDiff edits of the misspelled word,
+    // found by walking a DictionaryTrie.
+    TRIE,
+    // Same candidates as TRIE, found by hash lookups of the deletions of the
+    // misspelled word in a DeletionIndex. Falls back to SCAN when
+    // maxLengthDiff is over the distance of the index.
+    SYMSPELL,
+    // Only score the words with the Soundex code of the misspelled word, or
+    // one keyboard neighbour substitution away from it, found in a
+    // TargetedIndex. Falls back to SCAN when they give fewer than topN
+    // suggestions.
+    TARGETED
+}
@@ -0,0 +1,358 @@
+/**
+ * @author Claire Jiasin Lua TargetedIndex class finds the candidates for the
+ *         two most common kinds of typos without a scan of the dictionary:
+ *         phonetic confusions, as the words with the same Soundex code as the
+ *         misspelled word, and slips to an adjacent key, as the words made by
+ *         replacing one letter of the misspelled word with one of its QWERTY
+ *         neighbours. Both are hash lookups in tables built when the
+ *         dictionary is loaded, in the sorted arrays of DeletionIndex: one
+ *         maps Soundex codes to word ids, the other the hashes of the words.
+ *
+ *         The TARGETED strategy scores these candidates and falls back to a
+ *         scan when they give fewer than topN suggestions; the index counts
+ *         how often that happens.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+public class TargetedIndex {
+    // Soundex digit of each letter a-z; 0 for vowels, h, w and y.
+    static final String SOUNDEX_DIGITS = "01230120022455012623010202";
+    static final String[] KEYBOARD_ROWS =
+            { "qwertyuiop", "asdfghjkl", "zxcvbnm" };
+    // Keys next to each letter a-z, on its row and the rows above and below.
+    static final String[] KEYBOARD_NEIGHBOURS = keyboardNeighbours();
+
+    /**
+     * Table maps int keys to word ids in sorted arrays: the ids of key
+     * keys[k] are wordIds[offsets[k]] to wordIds[offsets[k + 1] - 1].
+     */
+    static class Table {
+        int[] keys;
+        int[] offsets;
+        int[] wordIds;
+
+        /**
+         * Table constructor from entries of a key in the high half and a word
+         * id in the low half.
+         *
+         * @param entries
+         * @param count   number of entries used
+         * @return
+         */
+        Table(long[] entries, int count) {
+            Arrays.sort(entries, 0, count);
+            keys = new int[count];
+            offsets = new int[count + 1];
+            wordIds = new int[count];
+            int keyCount = 0;
+            for (int i = 0; i < count; i++) {
+                int key = (int) (entries[i] >> 32);
+                if (keyCount == 0 || keys[keyCount - 1] != key) {
+                    keys[keyCount] = key;
+                    offsets[keyCount] = i;
+                    keyCount++;
+                }
+                wordIds[i] = (int) entries[i];
+            }
+            offsets[keyCount] = count;
+            keys = Arrays.copyOf(keys, keyCount);
+            offsets = Arrays.copyOf(offsets, keyCount + 1);
+        }
+
+        /**
+         * find calls found with every word id of a key.
+         *
+         * @param key
+         * @param found
+         */
+        void find(int key, IntConsumer found) {
+            int k = Arrays.binarySearch(keys, key);
+            if (k < 0) {
+                return;
+            }
+            for (int i = offsets[k]; i < offsets[k + 1]; i++) {
+                found.accept(wordIds[i]);
+            }
+        }
+
+        /**
+         * @return long approximate size of the table in bytes
+         */
+        long sizeInBytes() {
+            return WordIndex.arrayBytes(keys.length, 4)
+                    + WordIndex.arrayBytes(offsets.length, 4)
+                    + WordIndex.arrayBytes(wordIds.length, 4);
+        }
+    }
+
+    Table phonetic;
+    Table words;
+    long buildMillis;
+    // Searches answered by the candidates, and searches that fell back to
+    // the scan.
+    LongAdder hits = new LongAdder();
+    LongAdder fallbacks = new LongAdder();
+    LongAdder candidates = new LongAdder();
+
+    /**
+     * TargetedIndex constructor computes the Soundex code and the hash of
+     * every word of an index.
+     *
+     * @param wordIndex
+     * @return
+     */
+    TargetedIndex(WordIndex wordIndex) {
+        long start = System.nanoTime();
+        long[] codes = new long[wordIndex.size()];
+        int codeCount = 0;
+        long[] hashes = new long[wordIndex.size()];
+        for (int id = 0; id < wordIndex.size(); id++) {
+            String word = wordIndex.word(id);
+            int code = soundex(word);
+            if (code >= 0) {
+                codes[codeCount++] = ((long) code << 32) | id;
+            }
+            hashes[id] = ((long) word.hashCode() << 32) | id;
+        }
+        phonetic = new Table(codes, codeCount);
+        words = new Table(hashes, hashes.length);
+        buildMillis = (System.nanoTime() - start) / 1000000;
+    }
+
+    /**
+     * keyboardNeighbours returns the keys next to each letter a-z on a QWERTY
+     * keyboard, whose rows are each shifted half a key right of the one
+     * above.
+     *
+     * @return String[]
+     */
+    static String[] keyboardNeighbours() {
+        String[] neighbours = new String[26];
+        for (int row = 0; row < KEYBOARD_ROWS.length; row++) {
+            String keys = KEYBOARD_ROWS[row];
+            for (int i = 0; i < keys.length(); i++) {
+                StringBuilder next = new StringBuilder();
+                addKeys(next, row - 1, i, i + 1);
+                addKeys(next, row, i - 1, i - 1);
+                addKeys(next, row, i + 1, i + 1);
+                addKeys(next, row + 1, i - 1, i);
+                neighbours[keys.charAt(i) - 'a'] = next.toString();
+            }
+        }
+        return neighbours;
+    }
+
+    /**
+     * addKeys appends the keys of a row from column first to last, skipping
+     * rows and columns off the keyboard.
+     *
+     * @param keys
+     * @param row
+     * @param first
+     * @param last
+     */
+    static void addKeys(StringBuilder keys, int row, int first, int last) {
+        if (row < 0 || row >= KEYBOARD_ROWS.length) {
+            return;
+        }
+        String rowKeys = KEYBOARD_ROWS[row];
+        for (int i = Math.max(0, first); i <= last && i < rowKeys.length();
+                i++) {
+            keys.append(rowKeys.charAt(i));
+        }
+    }
+
+    /**
+     * soundex returns the American Soundex code of a word as an int: the
+     * index of its first letter times 1000 plus its three digits, or -1 if
+     * it has no letter a-z. Other characters and case are ignored.
+     *
+     * @param word
+     * @return int
+     */
+    static int soundex(String word) {
+        int first = -1;
+        int code = 0;
+        int digits = 0;
+        int last = 0;
+        for (int i = 0; i < word.length() && digits < 3; i++) {
+            char c = Character.toLowerCase(word.charAt(i));
+            if (c < 'a' || c > 'z') {
+                continue;
+            }
+            int digit = SOUNDEX_DIGITS.charAt(c - 'a') - '0';
+            if (first < 0) {
+                first = c - 'a';
+            } else if (c == 'h' || c == 'w') {
+                // Letters with the same digit on both sides are coded once.
+                continue;
+            } else if (digit != 0 && digit != last) {
+                code = code * 10 + digit;
+                digits++;
+            }
+            last = digit;
+        }
+        if (first < 0) {
+            return -1;
+        }
+        for (; digits < 3; digits++) {
+            code *= 10;
+        }
+        return first * 1000 + code;
+    }
+
+    /**
+     * search calls found once with the id of every word with the Soundex
+     * code of word and within maxLengthDiff letters of its length, and of
+     * every word one keyboard neighbour substitution away from it.
+     *
+     * @param wordIndex
+     * @param word
+     * @param maxLengthDiff
+     * @param found
+     */
+    void search(WordIndex wordIndex, String word, int maxLengthDiff,
+            IntConsumer found) {
+        IdList ids = new IdList();
+        // Ids are ordered by length, so the lengths within maxLengthDiff
+        // are a range of ids.
+        int start = wordIndex.lengthStart((long) word.length() - maxLengthDiff);
+        int end =
+                wordIndex.lengthStart((long) word.length() + maxLengthDiff + 1);
+        int code = soundex(word);
+        if (code >= 0) {
+            phonetic.find(code, id -> {
+                if (id >= start && id < end) {
+                    ids.add(id);
+                }
+            });
+        }
+        if (maxLengthDiff >= 0) {
+            char[] chars = word.toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                char c = chars[i];
+                if (c < 'a' || c > 'z') {
+                    continue;
+                }
+                for (char neighbour : KEYBOARD_NEIGHBOURS[c - 'a']
+                        .toCharArray()) {
+                    chars[i] = neighbour;
+                    String substituted = new String(chars);
+                    words.find(substituted.hashCode(), id -> {
+                        if (wordIndex.word(id).equals(substituted)) {
+                            ids.add(id);
+                        }
+                    });
+                }
+                chars[i] = c;
+            }
+        }
+        int[] sorted = ids.toArray();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                candidates.increment();
+                found.accept(sorted[i]);
+            }
+        }
+    }
+
+    /**
+     * isCandidate checks whether search would find a word for word: whether
+     * it has the same Soundex code within maxLengthDiff letters of length,
+     * or is one keyboard neighbour substitution away.
+     *
+     * @param word
+     * @param maxLengthDiff
+     * @param candidate
+     * @return boolean
+     */
+    static boolean isCandidate(String word, int maxLengthDiff,
+            String candidate) {
+        int code = soundex(word);
+        if (code >= 0 && soundex(candidate) == code
+                && Math.abs(word.length() - candidate.length())
+                        <= maxLengthDiff) {
+            return true;
+        }
+        if (maxLengthDiff < 0 || word.length() != candidate.length()) {
+            return false;
+        }
+        int substitutions = 0;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            char other = candidate.charAt(i);
+            if (c == other) {
+                continue;
+            }
+            if (c < 'a' || c > 'z' || ++substitutions > 1
+                    || KEYBOARD_NEIGHBOURS[c - 'a'].indexOf(other) < 0) {
+                return false;
+            }
+        }
+        return substitutions == 1;
+    }
+
+    /**
+     * recordSearch counts a search that was answered by the candidates of
+     * the index, or that fell back to the scan.
+     *
+     * @param hit
+     */
+    void recordSearch(boolean hit) {
+        if (hit) {
+            hits.increment();
+        } else {
+            fallbacks.increment();
+        }
+    }
+
+    /**
+     * @return long searches answered by the candidates of the index
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return long searches that fell back to the scan
+     */
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * getHitRate returns the share of the searches answered without a scan.
+     *
+     * @return double
+     */
+    public double getHitRate() {
+        long searches = getHits() + getFallbacks();
+        return searches == 0 ? 0 : getHits() / (double) searches;
+    }
+
+    /**
+     * @return long approximate size of the index in bytes
+     */
+    long sizeInBytes() {
+        return phonetic.sizeInBytes() + words.sizeInBytes();
+    }
+
+    /**
+     * @return String size and build time of the index, and its hit rate
+     */
+    public String toString() {
+        long searches = getHits() + getFallbacks();
+        return String.format(
+                "%d Soundex codes, %d words, %d bytes, built in %d ms;"
+                        + " %d searches, %.1f candidates each, hit rate"
+                        + " %.2f%% (%d fallbacks to the scan)",
+                phonetic.keys.length, words.wordIds.length, sizeInBytes(),
+                buildMillis, searches,
+                searches == 0 ? 0 : candidates.sum() / (double) searches,
+                100 * getHitRate(), getFallbacks());
+    }
+}
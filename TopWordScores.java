@@ -0,0 +1,199 @@
+/**
+ * @author Claire Jiasin Lua TopWordScores class keeps the top n scored words
+ *         in fixed-size arrays of scores and word ids, best first, in the same
+ *         order as WordScore.compareTo.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+
+public class TopWordScores {
+    // Words of the ids.
+    WordIndex wordIndex;
+    // Scores and word ids, best first, in slots 0 to count - 1.
+    double[] scores;
+    int[] ids;
+    int count = 0;
+    int capacity; // -1 for unlimited size
+    // Unlimited TopWordScores append words and only sort them when read.
+    boolean sorted = true;
+    // What happened to the candidates of the search filling this.
+    PruningCounters counters = new PruningCounters();
+
+    /**
+     * @param capacity number of words to keep, -1 for unlimited
+     * @param wordIndex words of the ids
+     */
+    TopWordScores(int capacity, WordIndex wordIndex) {
+        this.capacity = capacity < -1 ? 0 : capacity;
+        this.wordIndex = wordIndex;
+        int initialSize = capacity == -1 ? 16 : this.capacity;
+        scores = new double[initialSize];
+        ids = new int[initialSize];
+    }
+
+    /**
+     * threshold returns the lowest score a word needs to be added once the
+     * top n is full, or negative infinity if it is not full yet.
+     *
+     * @return double
+     */
+    public double threshold() {
+        if (capacity == -1 || count < capacity || count == 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return scores[count - 1];
+    }
+
+    /**
+     * isBetter checks whether a word and its score rank before the word in
+     * the given slot.
+     *
+     * @param id
+     * @param score
+     * @param slot
+     * @return boolean
+     */
+    boolean isBetter(int id, double score, int slot) {
+        if (score != scores[slot]) {
+            return score > scores[slot];
+        }
+        return wordIndex.word(id).compareTo(wordIndex.word(ids[slot])) < 0;
+    }
+
+    /**
+     * add a word id and its score, dropping the worst word if the top n is
+     * full.
+     *
+     * @param id
+     * @param score
+     * @return boolean true if the word was kept
+     */
+    public boolean add(int id, double score) {
+        if (capacity == -1) {
+            if (count == scores.length) {
+                scores = Arrays.copyOf(scores, count * 2);
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            scores[count] = score;
+            ids[count] = id;
+            count++;
+            sorted = false;
+            return true;
+        }
+        if (count == capacity) {
+            if (count == 0 || score < scores[count - 1]
+                    || !isBetter(id, score, count - 1)) {
+                return false;
+            }
+            count--;
+        }
+        int slot = count;
+        while (slot > 0 && isBetter(id, score, slot - 1)) {
+            scores[slot] = scores[slot - 1];
+            ids[slot] = ids[slot - 1];
+            slot--;
+        }
+        scores[slot] = score;
+        ids[slot] = id;
+        count++;
+        return true;
+    }
+
+    /**
+     * merge adds the words of another TopWordScores over the same words.
+     *
+     * @param other
+     */
+    public void merge(TopWordScores other) {
+        counters.add(other.counters);
+        for (int i = 0; i < other.count; i++) {
+            if (!add(other.ids[i], other.scores[i]) && capacity != -1) {
+                // The rest of other is worse than this word.
+                return;
+            }
+        }
+    }
+
+    /**
+     * without returns the best words of this that are not removed, at most
+     * capacity of them, with the same counters.
+     *
+     * @param removed
+     * @param capacity -1 for unlimited
+     * @return TopWordScores
+     */
+    TopWordScores without(Set<String> removed, int capacity) {
+        sort();
+        TopWordScores result = new TopWordScores(capacity, wordIndex);
+        result.counters = counters;
+        for (int i = 0; i < count
+                && (capacity == -1 || result.count < capacity); i++) {
+            if (!removed.contains(wordIndex.word(ids[i]))) {
+                result.add(ids[i], scores[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * sort orders the words of an unlimited TopWordScores, best first.
+     */
+    void sort() {
+        if (sorted) {
+            return;
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                if (scores[a] != scores[b]) {
+                    return scores[a] > scores[b] ? -1 : 1;
+                }
+                return wordIndex.word(ids[a]).compareTo(wordIndex.word(ids[b]));
+            }
+        });
+        double[] sortedScores = new double[scores.length];
+        int[] sortedIds = new int[ids.length];
+        for (int i = 0; i < count; i++) {
+            sortedScores[i] = scores[order[i]];
+            sortedIds[i] = ids[order[i]];
+        }
+        scores = sortedScores;
+        ids = sortedIds;
+        sorted = true;
+    }
+
+    /**
+     * size returns the number of words kept.
+     *
+     * @return int
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Return the words, best first.
+     *
+     * @param debug return debug info if true
+     * @return ArrayList<String> words in order
+     */
+    public ArrayList<String> getWords(boolean debug) {
+        sort();
+        ArrayList<String> result = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            if (debug) {
+                result.add(new WordScore(wordIndex.word(ids[i]), scores[i])
+                        .toString());
+            } else {
+                result.add(wordIndex.word(ids[i]));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ * @author Claire Jiasin Lua WordFeatures class holds what the scorers need to
+ *         know about each dictionary word in arrays indexed by word id, built
+ *         once per dictionary snapshot: its length, its CharSignature, its
+ *         first and last K characters packed in a long each, and how many
+ *         times it has each letter a-z. A scan reads these arrays one id
+ *         after the other instead of the Strings of the index, and only reads
+ *         a word when it may rank.
+ *
+ *         The first and last characters give the similarity metric exactly
+ *         when the shorter word has at most K characters, and bound it
+ *         otherwise. The letter counts bound the edit distance from below.
+ */
+
+class WordFeatures {
+    // Characters kept from each end of a word, 16 bits each.
+    static final int K = 4;
+    static final int LETTERS = 26;
+    // High bit of each 16-bit lane, and the bits below it.
+    static final long LANE_HIGH_BITS = 0x8000800080008000L;
+    static final long LANE_LOW_BITS = ~LANE_HIGH_BITS;
+
+    int[] lengths;
+    long[] signatures;
+    // Character i of a word in bits 16 * i of its prefix, and character
+    // length - 1 - i in bits 16 * i of its suffix, for i < K.
+    long[] prefixes;
+    long[] suffixes;
+    // Count of letter c of word id in letterCounts[id * LETTERS + c - 'a'],
+    // at most Byte.MAX_VALUE.
+    byte[] letterCounts;
+
+    /**
+     * WordFeatures constructor reads every word of an index once.
+     *
+     * @param wordIndex
+     * @return
+     */
+    WordFeatures(WordIndex wordIndex) {
+        int size = wordIndex.size();
+        lengths = new int[size];
+        signatures = new long[size];
+        prefixes = new long[size];
+        suffixes = new long[size];
+        letterCounts = new byte[size * LETTERS];
+        for (int id = 0; id < size; id++) {
+            String word = wordIndex.word(id);
+            lengths[id] = word.length();
+            signatures[id] = wordIndex.signature(id);
+            prefixes[id] = prefix(word);
+            suffixes[id] = suffix(word);
+            countLetters(word, letterCounts, id * LETTERS);
+        }
+    }
+
+    /**
+     * prefix packs the first K characters of a word, 0 past its end.
+     *
+     * @param word
+     * @return long
+     */
+    static long prefix(String word) {
+        long prefix = 0;
+        for (int i = Math.min(K, word.length()) - 1; i >= 0; i--) {
+            prefix = prefix << 16 | word.charAt(i);
+        }
+        return prefix;
+    }
+
+    /**
+     * suffix packs the last K characters of a word, last first, 0 past its
+     * start.
+     *
+     * @param word
+     * @return long
+     */
+    static long suffix(String word) {
+        long suffix = 0;
+        int n = Math.min(K, word.length());
+        for (int i = word.length() - n; i < word.length(); i++) {
+            suffix = suffix << 16 | word.charAt(i);
+        }
+        return suffix;
+    }
+
+    /**
+     * letterCounts returns how many times a word has each letter a-z.
+     *
+     * @param word
+     * @return byte[]
+     */
+    static byte[] letterCounts(String word) {
+        byte[] counts = new byte[LETTERS];
+        countLetters(word, counts, 0);
+        return counts;
+    }
+
+    /**
+     * @param word
+     * @param counts
+     * @param offset
+     */
+    static void countLetters(String word, byte[] counts, int offset) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c >= 'a' && c <= 'z'
+                    && counts[offset + c - 'a'] < Byte.MAX_VALUE) {
+                counts[offset + c - 'a']++;
+            }
+        }
+    }
+
+    /**
+     * commonPercent returns WordRecommender.getCommonPercent of word and word
+     * id, which is only read from the index if the signatures cannot decide.
+     *
+     * @param id
+     * @param word
+     * @param signature
+     * @param wordIndex
+     * @return double
+     */
+    double commonPercent(int id, String word, long signature,
+            WordIndex wordIndex) {
+        long candidateSignature = signatures[id];
+        if (CharSignature.isExact(signature)
+                && CharSignature.isExact(candidateSignature)) {
+            return CharSignature.commonPercent(signature, candidateSignature);
+        }
+        return WordRecommender.getCommonPercent(word, signature,
+                wordIndex.word(id), candidateSignature);
+    }
+
+    /**
+     * equalLanes counts the first lanes 16-bit lanes of two packed words
+     * that are equal.
+     *
+     * @param packed1
+     * @param packed2
+     * @param lanes   from 0 to K
+     * @return int
+     */
+    static int equalLanes(long packed1, long packed2, int lanes) {
+        long difference = packed1 ^ packed2;
+        // High bit of a lane set when any bit of the lane is.
+        long nonZero = ((difference & LANE_LOW_BITS) + LANE_LOW_BITS)
+                | difference;
+        long mask = lanes >= K ? LANE_HIGH_BITS
+                : LANE_HIGH_BITS & ((1L << 16 * lanes) - 1);
+        return Long.bitCount(~nonZero & mask);
+    }
+
+    /**
+     * edgeMatches returns the number of the first K and last K positions,
+     * up to the shorter length, where word id has the same characters as the
+     * word with the given prefix and suffix: the similarity metric counts
+     * these twice over, from the left and from the right.
+     *
+     * @param id
+     * @param prefix
+     * @param suffix
+     * @param commonLength length of the shorter word
+     * @return int
+     */
+    int edgeMatches(int id, long prefix, long suffix, int commonLength) {
+        int lanes = Math.min(K, commonLength);
+        return equalLanes(prefixes[id], prefix, lanes)
+                + equalLanes(suffixes[id], suffix, lanes);
+    }
+
+    /**
+     * minEdits returns a lower bound of the edit distance between word id and
+     * the word with the given letter counts: each edit adds or removes at
+     * most one letter.
+     *
+     * @param id
+     * @param counts
+     * @return int
+     */
+    int minEdits(int id, byte[] counts) {
+        int offset = id * LETTERS;
+        int added = 0;
+        int removed = 0;
+        for (int c = 0; c < LETTERS; c++) {
+            int difference = letterCounts[offset + c] - counts[c];
+            if (difference > 0) {
+                added += difference;
+            } else {
+                removed -= difference;
+            }
+        }
+        return Math.max(added, removed);
+    }
+
+    /**
+     * @return long size of the arrays in bytes
+     */
+    long sizeInBytes() {
+        return WordIndex.arrayBytes(lengths.length, 4)
+                + WordIndex.arrayBytes(signatures.length, 8)
+                + WordIndex.arrayBytes(prefixes.length, 8)
+                + WordIndex.arrayBytes(suffixes.length, 8)
+                + WordIndex.arrayBytes(letterCounts.length, 1);
+    }
+}
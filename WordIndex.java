@@ -0,0 +1,69 @@
+/**
+ * @author Claire Jiasin Lua WordIndex interface is the storage of the
+ *         dictionary words used by WordRecommender. Each word has an id, and
+ *         ids are ordered by word length so that the words of one length
+ *         have consecutive ids. Implementations are immutable, so they can
+ *         be read from any number of threads.
+ */
+
+interface WordIndex {
+    /**
+     * size returns the number of words.
+     * 
+     * @return int
+     */
+    int size();
+
+    /**
+     * contains checks whether a word is in the index.
+     * 
+     * @param word
+     * @return boolean
+     */
+    boolean contains(String word);
+
+    /**
+     * word returns the word with the given id.
+     * 
+     * @param id
+     * @return String
+     */
+    String word(int id);
+
+    /**
+     * signature returns the CharSignature of the word with the given id.
+     * 
+     * @param id
+     * @return long
+     */
+    long signature(int id);
+
+    /**
+     * lengthStart returns the id of the first word with the given length (or
+     * more), or size() if there is none.
+     * 
+     * @param length
+     * @return int
+     */
+    int lengthStart(long length);
+
+    /**
+     * sizeInBytes returns the approximate memory used by the index, assuming
+     * compressed object pointers.
+     * 
+     * @return long
+     */
+    long sizeInBytes();
+
+    /**
+     * arrayBytes returns the memory used by an array: a 16 byte header and
+     * the elements, rounded up to a multiple of 8.
+     * 
+     * @param length
+     * @param elementBytes
+     * @return long
+     */
+    static long arrayBytes(long length, int elementBytes) {
+        return (16 + length * elementBytes + 7) & ~7L;
+    }
+}
@@ -1,42 +1,129 @@
 /**
  * @author Claire Jiasin Lua WordRecommender class contains methods to detect
  *         and recommend similar words.
+ * 
+ *         A WordRecommender can be shared by any number of SpellCheckers
+ *         running on different threads. Words can be added or removed while
+ *         it is in use: each update builds a new DictionarySnapshot and
+ *         swaps it in, and every lookup reads the current snapshot once, so
+ *         lookups never take a lock and never see half an update. Small
+ *         updates keep the indexes of the previous snapshot and put the
+ *         changed words in an OverlayWordIndex.
  */
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 
 public class WordRecommender {
-    // List of words in the dictionary.
-    HashSet<String> dictionaryWords;
+    // Smallest range of candidates worth scoring as its own fork-join task.
+    static final int MIN_PARTITION_SIZE = 2048;
+    // Number of candidates given to the SimilarityKernel at once.
+    static final int KERNEL_BLOCK_SIZE = 256;
+    // Number of suggestion lists cached by default.
+    static final int DEFAULT_CACHE_SIZE = 10000;
+    // Number of words updates may change before the indexes are rebuilt.
+    static final int DEFAULT_MAX_DICTIONARY_DELTA = 256;
+
+    // Words in the dictionary and their indexes, replaced on each update.
+    volatile DictionarySnapshot snapshot;
+    // Recent results of getWordSuggestions, null if caching is off.
+    final SuggestionCache suggestionCache;
+    // How getWordSuggestions finds candidates.
+    final SuggestionStrategy strategy;
+    // Scores the scan a block at a time, null to score word by word.
+    final SimilarityKernel similarityKernel;
+    final RecommenderOptions options;
+    final String fileName;
+    // Serializes updates; lookups do not use it.
+    final Object updateLock = new Object();
+    // Totals of the candidates pruned by all searches.
+    final PruningCounters pruningCounters = new PruningCounters();
+    // Where lookups are counted and timed, all null if metrics are off.
+    final MetricsRegistry metrics;
+    final LongAdder wordChecks;
+    final LongAdder invalidWords;
+    final Histogram loadNanos;
+    final Histogram suggestionNanos;
+    final Histogram batchNanos;
 
     /**
      * loadDictionary methods takes the inputted dictionary file and loads it
-     * into the dictionaryWords ArrayList. It also returns the number of words
-     * in the dictionary file.
+     * into a WordIndex. A file compiled by DictionaryCompiler is memory
+     * mapped, any other file is read as a text file with one word per line.
      * 
      * @param fileName path to the dictionary file
-     * @return int the number of words loaded
-     * @throws FileNotFoundException
+     * @param compact  whether to pack a text dictionary in a CompactWordIndex
+     * @return WordIndex the words loaded
+     * @throws IOException
      */
-    private int loadDictionary(String fileName) throws FileNotFoundException {
-        int wordCount = 0;
+    private static WordIndex loadDictionary(String fileName, boolean compact)
+            throws IOException {
+        if (MappedWordIndex.isCompiled(fileName)) {
+            return new MappedWordIndex(fileName);
+        }
+        Collection<String> dictionaryWords = compact
+                ? new ArrayList<String>()
+                : new HashSet<String>();
 
         File file = new File(fileName);
         Scanner sc = new Scanner(file);
 
         while (sc.hasNextLine()) {
             dictionaryWords.add(sc.nextLine());
-            wordCount++;
         }
         sc.close();
 
-        return wordCount;
+        return newWordIndex(dictionaryWords, compact);
+    }
+
+    /**
+     * newWordIndex builds the in-memory WordIndex of some words.
+     * 
+     * @param words
+     * @param compact whether to use a CompactWordIndex
+     * @return WordIndex
+     */
+    private static WordIndex newWordIndex(Collection<String> words,
+            boolean compact) {
+        if (compact) {
+            return new CompactWordIndex(words);
+        }
+        return new HeapWordIndex(words);
+    }
+
+    /**
+     * readWords reads all the words of a dictionary file, text or compiled.
+     * 
+     * @param fileName
+     * @return HashSet<String>
+     * @throws IOException
+     */
+    static HashSet<String> readWords(String fileName) throws IOException {
+        HashSet<String> words = new HashSet<String>();
+        if (MappedWordIndex.isCompiled(fileName)) {
+            WordIndex wordIndex = new MappedWordIndex(fileName);
+            for (int id = 0; id < wordIndex.size(); id++) {
+                words.add(wordIndex.word(id));
+            }
+            return words;
+        }
+        Scanner sc = new Scanner(new File(fileName));
+        while (sc.hasNextLine()) {
+            words.add(sc.nextLine());
+        }
+        sc.close();
+        return words;
     }
 
     /**
@@ -46,7 +133,29 @@ public class WordRecommender {
      * @return int
      */
     public int dictionaryWordsCount() {
-        return dictionaryWords.size();
+        return snapshot.wordCount();
+    }
+
+    /**
+     * dictionarySizeInBytes returns the approximate memory used by the loaded
+     * dictionary (off the heap for a compiled dictionary).
+     * 
+     * @return long
+     */
+    public long dictionarySizeInBytes() {
+        return snapshot.wordIndex.sizeInBytes();
+    }
+
+    /**
+     * dictionaryBytesPerWord returns the memory used by the loaded dictionary
+     * per word.
+     * 
+     * @return double
+     */
+    public double dictionaryBytesPerWord() {
+        DictionarySnapshot dictionary = snapshot;
+        return dictionary.wordIndex.sizeInBytes()
+                / (double) Math.max(1, dictionary.wordCount());
     }
 
     /**
@@ -56,11 +165,346 @@ public class WordRecommender {
      * @param fileName
      * @param max_suggestion_size
      * @return
-     * @throws FileNotFoundException
+     * @throws IOException
+     */
+    public WordRecommender(String fileName) throws IOException {
+        this(fileName, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * WordRecommender constructor with the number of suggestion lists to
+     * cache, 0 for no caching.
+     * 
+     * @param fileName
+     * @param cacheSize
+     * @return
+     * @throws IOException
+     */
+    public WordRecommender(String fileName, int cacheSize) throws IOException {
+        this(fileName, new RecommenderOptions().setCacheSize(cacheSize));
+    }
+
+    /**
+     * WordRecommender constructor with options.
+     * 
+     * @param fileName
+     * @param options
+     * @return
+     * @throws IOException
+     */
+    public WordRecommender(String fileName, RecommenderOptions options)
+            throws IOException {
+        this.fileName = fileName;
+        this.options = options;
+        suggestionCache = options.cacheSize > 0
+                ? new SuggestionCache(options.cacheSize)
+                : null;
+        strategy = options.strategy;
+        similarityKernel = options.vectorKernel
+                ? SimilarityKernel.load()
+                : null;
+        metrics = options.metrics;
+        wordChecks = metrics != null
+                ? metrics.counter("isValidWord.calls")
+                : null;
+        invalidWords = metrics != null
+                ? metrics.counter("isValidWord.invalid")
+                : null;
+        loadNanos = metrics != null
+                ? metrics.histogram("dictionary.loadNanos")
+                : null;
+        suggestionNanos = metrics != null
+                ? metrics.histogram("suggestions.nanos")
+                : null;
+        batchNanos = metrics != null
+                ? metrics.histogram("suggestions.batchNanos")
+                : null;
+        long start = System.nanoTime();
+        snapshot = buildSnapshot(0,
+                loadDictionary(fileName, options.compactDictionary));
+        if (metrics != null) {
+            loadNanos.record(System.nanoTime() - start);
+            registerGauges();
+        }
+    }
+
+    /**
+     * registerGauges adds the dictionary size and the totals of the
+     * suggestion searches to the metrics.
+     */
+    private void registerGauges() {
+        metrics.gauge("dictionary.words", () -> snapshot.wordCount());
+        metrics.gauge("dictionary.version", () -> snapshot.version);
+        metrics.gauge("suggestions.candidates.lengthPruned",
+                () -> pruningCounters.copy().lengthPruned);
+        metrics.gauge("suggestions.candidates.commonRejected",
+                () -> pruningCounters.copy().commonRejected);
+        metrics.gauge("suggestions.candidates.similarityPruned",
+                () -> pruningCounters.copy().similarityPruned);
+        metrics.gauge("suggestions.candidates.scored",
+                () -> pruningCounters.copy().scored);
+        if (strategy == SuggestionStrategy.TARGETED) {
+            metrics.gauge("suggestions.targeted.hits",
+                    () -> snapshot.targetedIndex.getHits());
+            metrics.gauge("suggestions.targeted.fallbacks",
+                    () -> snapshot.targetedIndex.getFallbacks());
+        }
+        if (suggestionCache != null) {
+            metrics.gauge("suggestions.cache.hits",
+                    suggestionCache::getHits);
+            metrics.gauge("suggestions.cache.misses",
+                    suggestionCache::getMisses);
+        }
+    }
+
+    /**
+     * buildSnapshot builds the indexes the options ask for on top of a
+     * WordIndex. Only the first snapshot loads or saves the deletion index
+     * file: the words of later ones are not those of the file.
+     * 
+     * @param version
+     * @param wordIndex
+     * @return DictionarySnapshot
+     * @throws IOException
+     */
+    private DictionarySnapshot buildSnapshot(long version, WordIndex wordIndex)
+            throws IOException {
+        DictionaryTrie trie = strategy == SuggestionStrategy.TRIE
+                ? new DictionaryTrie(wordIndex)
+                : null;
+        DeletionIndex deletionIndex = strategy == SuggestionStrategy.SYMSPELL
+                ? version == 0 ? loadDeletionIndex(wordIndex)
+                        : DeletionIndex.build(wordIndex,
+                                options.deletionDistance)
+                : null;
+        TargetedIndex targetedIndex = strategy == SuggestionStrategy.TARGETED
+                ? new TargetedIndex(wordIndex)
+                : null;
+        BloomFilter bloomFilter = options.bloomFilterBytes > 0
+                ? buildBloomFilter(wordIndex, options.bloomFilterBytes)
+                : null;
+        LengthColumns lengthColumns = similarityKernel != null
+                ? new LengthColumns(wordIndex)
+                : null;
+        WordFeatures features = options.featureTable
+                ? new WordFeatures(wordIndex)
+                : null;
+        return new DictionarySnapshot(version, wordIndex, trie, deletionIndex,
+                targetedIndex, bloomFilter, lengthColumns, features);
+    }
+
+    /**
+     * updateWords adds and removes dictionary words. The changes since the
+     * indexes were built go into an OverlayWordIndex over them; once there
+     * are more than the options' maxDictionaryDelta, the words are copied
+     * into a new WordIndex and its indexes are built. Either way the new
+     * snapshot then replaces the current one, so lookups running meanwhile
+     * keep using the old words. The suggestion cache is cleared. Updates run
+     * one at a time.
+     * 
+     * @param added
+     * @param removed
+     * @return boolean true if the dictionary changed
+     * @throws IOException
+     */
+    public boolean updateWords(Collection<String> added,
+            Collection<String> removed) throws IOException {
+        synchronized (updateLock) {
+            DictionarySnapshot current = snapshot;
+            OverlayWordIndex overlay =
+                    OverlayWordIndex.update(current.wordIndex, added, removed);
+            if (overlay == null) {
+                return false;
+            }
+            long start = System.nanoTime();
+            if (overlay.deltaSize() == 0) {
+                snapshot = current.withWordIndex(current.version + 1,
+                        overlay.base);
+            } else if (overlay.deltaSize() <= options.maxDictionaryDelta) {
+                snapshot = current.withWordIndex(current.version + 1,
+                        overlay);
+            } else {
+                snapshot = buildSnapshot(current.version + 1, newWordIndex(
+                        overlay.words(), options.compactDictionary));
+            }
+            if (metrics != null) {
+                loadNanos.record(System.nanoTime() - start);
+            }
+            if (suggestionCache != null) {
+                suggestionCache.clear();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * addWords adds words to the dictionary.
+     * 
+     * @param words
+     * @return boolean true if the dictionary changed
+     * @throws IOException
+     */
+    public boolean addWords(Collection<String> words) throws IOException {
+        return updateWords(words, new ArrayList<String>());
+    }
+
+    /**
+     * removeWords removes words from the dictionary.
+     * 
+     * @param words
+     * @return boolean true if the dictionary changed
+     * @throws IOException
+     */
+    public boolean removeWords(Collection<String> words) throws IOException {
+        return updateWords(new ArrayList<String>(), words);
+    }
+
+    /**
+     * getDictionaryVersion returns the number of updates that changed the
+     * dictionary since it was loaded.
+     * 
+     * @return long
+     */
+    public long getDictionaryVersion() {
+        return snapshot.version;
+    }
+
+    /**
+     * watchDictionary starts a DictionaryWatcher that applies the changes
+     * made to the dictionary file to this recommender. Close it to stop.
+     * 
+     * @return DictionaryWatcher
+     * @throws IOException
+     */
+    public DictionaryWatcher watchDictionary() throws IOException {
+        DictionaryWatcher watcher = new DictionaryWatcher(this, fileName);
+        watcher.start();
+        return watcher;
+    }
+
+    /**
+     * buildBloomFilter adds the dictionary words, and the words isValidWord
+     * always accepts, to a new BloomFilter.
+     * 
+     * @param wordIndex
+     * @param maxBytes
+     * @return BloomFilter
+     */
+    private static BloomFilter buildBloomFilter(WordIndex wordIndex,
+            int maxBytes) {
+        BloomFilter filter = new BloomFilter(wordIndex.size() + 2, maxBytes);
+        for (int id = 0; id < wordIndex.size(); id++) {
+            filter.add(wordIndex.word(id));
+        }
+        filter.add("i");
+        filter.add("a");
+        return filter;
+    }
+
+    /**
+     * getBloomFilter returns the BloomFilter in front of isValidWord, whose
+     * toString() reports its memory use and false positive rate, or null.
+     * 
+     * @return BloomFilter
      */
-    public WordRecommender(String fileName) throws FileNotFoundException {
-        dictionaryWords = new HashSet<String>();
-        loadDictionary(fileName);
+    public BloomFilter getBloomFilter() {
+        return snapshot.bloomFilter;
+    }
+
+    /**
+     * loadDeletionIndex loads the DeletionIndex of a WordIndex from the
+     * options' file, or builds it, saving it to that file if there is one.
+     * 
+     * @param wordIndex
+     * @return DeletionIndex
+     * @throws IOException
+     */
+    private DeletionIndex loadDeletionIndex(WordIndex wordIndex)
+            throws IOException {
+        String fileName = options.deletionIndexFile;
+        if (fileName != null && new File(fileName).isFile()) {
+            DeletionIndex index = DeletionIndex.load(fileName, wordIndex,
+                    options.deletionDistance);
+            if (index != null) {
+                return index;
+            }
+        }
+        DeletionIndex index =
+                DeletionIndex.build(wordIndex, options.deletionDistance);
+        if (fileName != null) {
+            index.write(fileName);
+        }
+        return index;
+    }
+
+    /**
+     * getDeletionIndex returns the DeletionIndex of the SYMSPELL strategy,
+     * whose toString() reports its size and build time, or null.
+     * 
+     * @return DeletionIndex
+     */
+    public DeletionIndex getDeletionIndex() {
+        return snapshot.deletionIndex;
+    }
+
+    /**
+     * getTrie returns the DictionaryTrie of the TRIE strategy, whose
+     * toString() reports its node count and size, or null.
+     * 
+     * @return DictionaryTrie
+     */
+    public DictionaryTrie getTrie() {
+        return snapshot.trie;
+    }
+
+    /**
+     * getTargetedIndex returns the TargetedIndex of the TARGETED strategy,
+     * whose toString() reports its size and how often its candidates were
+     * enough, or null. Its counts start over when its indexes are rebuilt.
+     * 
+     * @return TargetedIndex
+     */
+    public TargetedIndex getTargetedIndex() {
+        return snapshot.targetedIndex;
+    }
+
+    /**
+     * isVectorized checks whether the scan is scored with the
+     * VectorSimilarityKernel.
+     * 
+     * @return boolean
+     */
+    public boolean isVectorized() {
+        return similarityKernel != null;
+    }
+
+    /**
+     * getPruningCounters returns how many candidates of the searches so far
+     * were pruned at each stage, and how many were scored.
+     * 
+     * @return PruningCounters
+     */
+    public PruningCounters getPruningCounters() {
+        return pruningCounters.copy();
+    }
+
+    /**
+     * getMetrics returns the registry of the options, or null.
+     * 
+     * @return MetricsRegistry
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * getSuggestionCache returns the suggestion cache, with its hit, miss and
+     * eviction counts, or null if caching is off.
+     * 
+     * @return SuggestionCache
+     */
+    public SuggestionCache getSuggestionCache() {
+        return suggestionCache;
     }
 
     /**
@@ -71,8 +515,41 @@ public class WordRecommender {
      * @return boolean
      */
     public boolean isValidWord(String word) {
-        return dictionaryWords.contains(word) || word.equals("i")
-                || word.equals("a");
+        boolean valid = isDictionaryWord(word);
+        if (wordChecks != null) {
+            wordChecks.increment();
+            if (!valid) {
+                invalidWords.increment();
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * isDictionaryWord checks that a word is in the dictionary, or is i or a,
+     * like isValidWord but without counting the check in the metrics.
+     * 
+     * @param word
+     * @return boolean
+     */
+    boolean isDictionaryWord(String word) {
+        DictionarySnapshot dictionary = snapshot;
+        BloomFilter bloomFilter = dictionary.bloomFilter;
+        OverlayWordIndex overlay = dictionary.overlay;
+        // The filter only has the words the indexes were built from.
+        if (bloomFilter != null && !bloomFilter.mightContain(word)
+                && (overlay == null || !overlay.addedWords.contains(word))) {
+            return false;
+        }
+        if (dictionary.wordIndex.contains(word) || word.equals("i")
+                || word.equals("a")) {
+            return true;
+        }
+        if (bloomFilter != null
+                && (overlay == null || !overlay.removed.contains(word))) {
+            bloomFilter.recordFalsePositive();
+        }
+        return false;
     }
 
     /**
@@ -86,6 +563,18 @@ public class WordRecommender {
      * @return double
      */
     public double getSimilarityMetric(String word1, String word2) {
+        return similarityMetric(word1, word2);
+    }
+
+    /**
+     * similarityMetric is getSimilarityMetric, for callers without a
+     * WordRecommender.
+     * 
+     * @param word1
+     * @param word2
+     * @return double
+     */
+    static double similarityMetric(String word1, String word2) {
         int commonLen = Math.min(word1.length(), word2.length());
         int leftSimilarity = 0;
         int rightSimilarity = 0;
@@ -113,6 +602,27 @@ public class WordRecommender {
      * @return double
      */
     public double getCommonPercent(String word1, String word2) {
+        return getCommonPercent(word1, CharSignature.of(word1), word2,
+                CharSignature.of(word2));
+    }
+
+    /**
+     * getCommonPercent with the CharSignature of both words already computed.
+     * Only words with characters outside of the signature fall back to
+     * comparing sets of characters.
+     * 
+     * @param word1
+     * @param signature1
+     * @param word2
+     * @param signature2
+     * @return double
+     */
+    static double getCommonPercent(String word1, long signature1,
+            String word2, long signature2) {
+        if (CharSignature.isExact(signature1)
+                && CharSignature.isExact(signature2)) {
+            return CharSignature.commonPercent(signature1, signature2);
+        }
         Set<Character> chars1 = new HashSet<Character>();
         Set<Character> chars2 = new HashSet<Character>();
 
@@ -135,6 +645,25 @@ public class WordRecommender {
     }
 
     public int getCommon(String word1, String word2) {
+        return getCommon(word1, CharSignature.of(word1), word2,
+                CharSignature.of(word2));
+    }
+
+    /**
+     * getCommon with the CharSignature of both words already computed.
+     * 
+     * @param word1
+     * @param signature1
+     * @param word2
+     * @param signature2
+     * @return int
+     */
+    int getCommon(String word1, long signature1, String word2,
+            long signature2) {
+        if (CharSignature.isExact(signature1)
+                && CharSignature.isExact(signature2)) {
+            return CharSignature.common(signature1, signature2);
+        }
         Set<Character> chars1 = new HashSet<Character>();
         Set<Character> chars2 = new HashSet<Character>();
 
@@ -181,10 +710,30 @@ public class WordRecommender {
      */
     Optional<WordScore> getWordScore(String word, String candidateWord,
             int maxLengthDiff, double minCommonPercent) {
+        return getWordScore(word, CharSignature.of(word), candidateWord,
+                CharSignature.of(candidateWord), maxLengthDiff,
+                minCommonPercent);
+    }
+
+    /**
+     * getWordScore with the CharSignature of both words already computed.
+     * 
+     * @param word
+     * @param signature
+     * @param candidateWord
+     * @param candidateSignature
+     * @param maxLengthDiff
+     * @param minCommonPercent
+     * @return Optional<WordScore>
+     */
+    Optional<WordScore> getWordScore(String word, long signature,
+            String candidateWord, long candidateSignature, int maxLengthDiff,
+            double minCommonPercent) {
         if (!isValidWordLength(word, candidateWord, maxLengthDiff)) {
             return Optional.empty();
         }
-        double commonPercent = getCommonPercent(word, candidateWord);
+        double commonPercent = getCommonPercent(word, signature, candidateWord,
+                candidateSignature);
         if (commonPercent < minCommonPercent) {
             return Optional.empty();
         }
@@ -221,15 +770,541 @@ public class WordRecommender {
      */
     ArrayList<String> getWordSuggestionsInternal(String word, int maxLengthDiff,
             double minCommonPercent, int topN, boolean debug) {
-        WordQueue wordQueue = new WordQueue(topN);
-        for (String candidateWord : dictionaryWords) {
-            Optional<WordScore> result = getWordScore(word, candidateWord,
-                    maxLengthDiff, minCommonPercent);
-            if (result.isPresent()) {
-                wordQueue.add(result.get());
+        return getWordSuggestionsInternal(word, maxLengthDiff,
+                minCommonPercent, topN, debug, null);
+    }
+
+    /**
+     * getWordSuggestionsInternal scoring the candidates on the given fork-join
+     * pool, or on the calling thread if pool is null. The TRIE and SYMSPELL
+     * strategies, and the lookups of the TARGETED strategy, always run on
+     * the calling thread.
+     * 
+     * @param word
+     * @param maxLengthDiff
+     * @param minCommonPercent
+     * @param topN
+     * @param debug
+     * @param pool
+     * @return ArrayList<String>
+     */
+    ArrayList<String> getWordSuggestionsInternal(String word, int maxLengthDiff,
+            double minCommonPercent, int topN, boolean debug,
+            ForkJoinPool pool) {
+        DictionarySnapshot dictionary = snapshot;
+        WordIndex wordIndex = dictionary.wordIndex;
+        WordFeatures features = dictionary.features;
+        long signature = CharSignature.of(word);
+        long prefix = WordFeatures.prefix(word);
+        long suffix = WordFeatures.suffix(word);
+        int capacity = searchCapacity(dictionary, topN);
+        if (strategy == SuggestionStrategy.TRIE) {
+            TopWordScores topWords = new TopWordScores(capacity, wordIndex);
+            dictionary.trie.search(word, maxLengthDiff,
+                    id -> scoreCandidate(dictionary, word, signature, prefix,
+                            suffix, id, minCommonPercent, topWords));
+            TopWordScores results = applyOverlay(dictionary, word, signature,
+                    withinEdits(word, maxLengthDiff), minCommonPercent, topN,
+                    topWords);
+            pruningCounters.add(results.counters);
+            return results.getWords(debug);
+        }
+        DeletionIndex deletionIndex = dictionary.deletionIndex;
+        if (strategy == SuggestionStrategy.SYMSPELL
+                && maxLengthDiff <= deletionIndex.maxDistance) {
+            TopWordScores topWords = new TopWordScores(capacity, wordIndex);
+            deletionIndex.search(wordIndex, features, word, maxLengthDiff,
+                    id -> scoreCandidate(dictionary, word, signature, prefix,
+                            suffix, id, minCommonPercent, topWords));
+            TopWordScores results = applyOverlay(dictionary, word, signature,
+                    withinEdits(word, maxLengthDiff), minCommonPercent, topN,
+                    topWords);
+            pruningCounters.add(results.counters);
+            return results.getWords(debug);
+        }
+        TargetedIndex targetedIndex = dictionary.targetedIndex;
+        if (strategy == SuggestionStrategy.TARGETED) {
+            TopWordScores candidates = new TopWordScores(capacity, wordIndex);
+            targetedIndex.search(wordIndex, word, maxLengthDiff,
+                    id -> scoreCandidate(dictionary, word, signature, prefix,
+                            suffix, id, minCommonPercent, candidates));
+            TopWordScores topWords = applyOverlay(dictionary, word, signature,
+                    candidate -> TargetedIndex.isCandidate(word,
+                            maxLengthDiff, candidate),
+                    minCommonPercent, topN, candidates);
+            pruningCounters.add(topWords.counters);
+            // An unlimited topN always needs every candidate.
+            boolean hit = topN >= 0 && topWords.size() >= topN;
+            targetedIndex.recordSearch(hit);
+            if (hit) {
+                return topWords.getWords(debug);
+            }
+        }
+        // Only the length buckets within maxLengthDiff can match.
+        int start = wordIndex.lengthStart((long) word.length() - maxLengthDiff);
+        int end =
+                wordIndex.lengthStart((long) word.length() + maxLengthDiff + 1);
+        TopWordScores topWords;
+        if (pool == null || end - start <= MIN_PARTITION_SIZE) {
+            topWords = new TopWordScores(capacity, wordIndex);
+            scoreRange(dictionary, word, signature, start, end,
+                    minCommonPercent, topWords);
+        } else {
+            int partitionSize = Math.max(MIN_PARTITION_SIZE,
+                    (end - start) / (pool.getParallelism() * 4));
+            topWords = pool.invoke(new ScoreTask(dictionary, word, signature,
+                    start, end, minCommonPercent, capacity, partitionSize));
+        }
+        TopWordScores results = applyOverlay(dictionary, word, signature,
+                withinLength(word, maxLengthDiff), minCommonPercent, topN,
+                topWords);
+        pruningCounters.add(results.counters);
+        return results.getWords(debug);
+    }
+
+    /**
+     * searchCapacity returns how many words a search on a snapshot keeps to
+     * give topN suggestions: the removed words of its overlay may take the
+     * place of others until applyOverlay drops them.
+     * 
+     * @param dictionary
+     * @param topN
+     * @return int
+     */
+    static int searchCapacity(DictionarySnapshot dictionary, int topN) {
+        OverlayWordIndex overlay = dictionary.overlay;
+        return overlay == null || topN < 0 ? topN
+                : topN + overlay.removed.size();
+    }
+
+    /**
+     * withinLength returns a test of the words within maxLengthDiff letters
+     * of the length of word, the candidates of the scan.
+     * 
+     * @param word
+     * @param maxLengthDiff
+     * @return Predicate<String>
+     */
+    static Predicate<String> withinLength(String word, int maxLengthDiff) {
+        return candidate -> Math.abs(candidate.length()
+                - word.length()) <= maxLengthDiff;
+    }
+
+    /**
+     * withinEdits returns a test of the words within maxDistance edits of
+     * word, the candidates of the TRIE and SYMSPELL strategies.
+     * 
+     * @param word
+     * @param maxDistance
+     * @return Predicate<String>
+     */
+    static Predicate<String> withinEdits(String word, int maxDistance) {
+        return candidate -> EditDistance.levenshtein(word, candidate,
+                maxDistance) <= maxDistance;
+    }
+
+    /**
+     * applyOverlay finishes a search on a snapshot with an overlay: it scores
+     * the added words that isCandidate accepts into topWords, which the
+     * search filled keeping searchCapacity words, and returns the topN best
+     * of them that were not removed. Without an overlay, it returns
+     * topWords.
+     * 
+     * @param dictionary
+     * @param word
+     * @param signature
+     * @param isCandidate
+     * @param minCommonPercent
+     * @param topN
+     * @param topWords
+     * @return TopWordScores
+     */
+    TopWordScores applyOverlay(DictionarySnapshot dictionary, String word,
+            long signature, Predicate<String> isCandidate,
+            double minCommonPercent, int topN, TopWordScores topWords) {
+        OverlayWordIndex overlay = dictionary.overlay;
+        if (overlay == null) {
+            return topWords;
+        }
+        overlay.findAdded(isCandidate, id -> scoreCandidate(overlay, word,
+                signature, id, minCommonPercent, topWords));
+        return topWords.without(overlay.removed, topN);
+    }
+
+    /**
+     * scoreRange scores the words with ids from start to end - 1, which must
+     * all be of a valid length, and adds the ones with enough letters in
+     * common to topWords. Words are only read from the index when their
+     * signatures cannot decide the common percent, or when they are scored.
+     * 
+     * The words are scored one length at a time, longest first, and a whole
+     * length is skipped when it bounds the score too low: a word of length n
+     * has at most n letters in common with word, so a common percent of at
+     * most n / (distinct letters of word), and a similarity metric of at most
+     * min(n, word length). Lengths bound the similarity below the current
+     * threshold of topWords only strictly, as ties can still rank first.
+     * With WordFeatures, each word is first bounded by its first and last
+     * characters.
+     * 
+     * @param dictionary
+     * @param word
+     * @param signature
+     * @param start
+     * @param end
+     * @param minCommonPercent
+     * @param topWords
+     */
+    void scoreRange(DictionarySnapshot dictionary, String word,
+            long signature, int start, int end, double minCommonPercent,
+            TopWordScores topWords) {
+        if (start >= end) {
+            return;
+        }
+        WordIndex wordIndex = dictionary.wordIndex;
+        LengthColumns lengthColumns = dictionary.lengthColumns;
+        byte[] latin1Word =
+                lengthColumns != null ? LengthColumns.encode(word) : null;
+        PruningCounters counters = topWords.counters;
+        int distinct = CharSignature.distinct(word, signature);
+        long prefix = WordFeatures.prefix(word);
+        long suffix = WordFeatures.suffix(word);
+        // Longest words first, as their bound is the highest.
+        int length = wordIndex.word(end - 1).length();
+        int lengthEnd = end;
+        while (lengthEnd > start) {
+            int lengthStart =
+                    Math.max(start, wordIndex.lengthStart(length));
+            int maxSimilarity = Math.min(word.length(), length);
+            if (distinct > 0 && Math.min(distinct, length)
+                    / (double) distinct < minCommonPercent) {
+                counters.lengthPruned += lengthEnd - lengthStart;
+            } else if (latin1Word != null && lengthColumns.isStored(length)) {
+                scoreColumns(dictionary, word, latin1Word, signature, length,
+                        lengthStart, lengthEnd, minCommonPercent, topWords);
+            } else {
+                for (int id = lengthStart; id < lengthEnd; id++) {
+                    if (maxSimilarity < topWords.threshold()) {
+                        counters.similarityPruned += lengthEnd - id;
+                        break;
+                    }
+                    scoreCandidate(dictionary, word, signature, prefix,
+                            suffix, id, minCommonPercent, topWords);
+                }
+            }
+            lengthEnd = lengthStart;
+            length--;
+        }
+    }
+
+    /**
+     * scoreWords scores the candidates of several words in one pass over the
+     * dictionary, reading each candidate once for all the words whose length
+     * window it is in. Lengths are visited longest first and each word prunes
+     * them as scoreRange and scoreCandidate do, so every word gets the
+     * TopWordScores it would get from scoreRange. With WordFeatures, a
+     * candidate is only read from the index once a word may rank it.
+     * 
+     * @param dictionary
+     * @param words
+     * @param maxLengthDiff
+     * @param minCommonPercent
+     * @param topN
+     * @return TopWordScores[] the top words of each word
+     */
+    TopWordScores[] scoreWords(DictionarySnapshot dictionary, String[] words,
+            int maxLengthDiff, double minCommonPercent, int topN) {
+        WordIndex wordIndex = dictionary.wordIndex;
+        WordFeatures features = dictionary.features;
+        TopWordScores[] topWords = new TopWordScores[words.length];
+        long[] signatures = new long[words.length];
+        long[] prefixes = new long[words.length];
+        long[] suffixes = new long[words.length];
+        int[] distinct = new int[words.length];
+        int minLength = Integer.MAX_VALUE;
+        int maxLength = -1;
+        for (int i = 0; i < words.length; i++) {
+            topWords[i] = new TopWordScores(topN, wordIndex);
+            signatures[i] = CharSignature.of(words[i]);
+            prefixes[i] = WordFeatures.prefix(words[i]);
+            suffixes[i] = WordFeatures.suffix(words[i]);
+            distinct[i] = CharSignature.distinct(words[i], signatures[i]);
+            minLength = Math.min(minLength, words[i].length());
+            maxLength = Math.max(maxLength, words[i].length());
+        }
+        // Words still scoring the current length.
+        int[] active = new int[words.length];
+        for (long length = (long) maxLength + maxLengthDiff;
+                length >= Math.max(0, (long) minLength - maxLengthDiff);
+                length--) {
+            int lengthStart = wordIndex.lengthStart(length);
+            int lengthEnd = wordIndex.lengthStart(length + 1);
+            if (lengthStart == lengthEnd) {
+                continue;
+            }
+            int activeCount = 0;
+            for (int i = 0; i < words.length; i++) {
+                if (Math.abs(words[i].length() - length) > maxLengthDiff) {
+                    continue;
+                }
+                if (distinct[i] > 0 && Math.min(distinct[i], length)
+                        / (double) distinct[i] < minCommonPercent) {
+                    topWords[i].counters.lengthPruned +=
+                            lengthEnd - lengthStart;
+                } else {
+                    active[activeCount++] = i;
+                }
+            }
+            for (int id = lengthStart; id < lengthEnd && activeCount > 0;
+                    id++) {
+                long candidateSignature = features != null
+                        ? features.signatures[id]
+                        : wordIndex.signature(id);
+                String candidate = null;
+                for (int k = 0; k < activeCount; k++) {
+                    int i = active[k];
+                    PruningCounters counters = topWords[i].counters;
+                    int maxSimilarity =
+                            (int) Math.min(words[i].length(), length);
+                    if (maxSimilarity < topWords[i].threshold()) {
+                        // The threshold only rises, so the word is done with
+                        // this length.
+                        counters.similarityPruned += lengthEnd - id;
+                        active[k--] = active[--activeCount];
+                        continue;
+                    }
+                    double commonPercent;
+                    if (CharSignature.isExact(signatures[i])
+                            && CharSignature.isExact(candidateSignature)) {
+                        commonPercent = CharSignature.commonPercent(
+                                signatures[i], candidateSignature);
+                    } else {
+                        if (candidate == null) {
+                            candidate = wordIndex.word(id);
+                        }
+                        commonPercent = getCommonPercent(words[i],
+                                signatures[i], candidate, candidateSignature);
+                    }
+                    if (commonPercent < minCommonPercent) {
+                        counters.commonRejected++;
+                        continue;
+                    }
+                    if (features != null) {
+                        int matches = features.edgeMatches(id, prefixes[i],
+                                suffixes[i], maxSimilarity);
+                        int rest =
+                                Math.max(0, maxSimilarity - WordFeatures.K);
+                        if ((matches + 2 * rest) / 2.0 < topWords[i]
+                                .threshold()) {
+                            counters.similarityPruned++;
+                            continue;
+                        }
+                        if (rest == 0) {
+                            counters.scored++;
+                            topWords[i].add(id, matches / 2.0);
+                            continue;
+                        }
+                    }
+                    if (candidate == null) {
+                        candidate = wordIndex.word(id);
+                    }
+                    counters.scored++;
+                    topWords[i].add(id,
+                            getSimilarityMetric(words[i], candidate));
+                }
+            }
+        }
+        return topWords;
+    }
+
+    /**
+     * scoreColumns scores the words of one length with ids from start to
+     * end - 1 with the SimilarityKernel, a block at a time, and adds the ones
+     * with enough letters in common to topWords.
+     * 
+     * @param dictionary
+     * @param word
+     * @param latin1Word
+     * @param signature
+     * @param length
+     * @param start
+     * @param end
+     * @param minCommonPercent
+     * @param topWords
+     */
+    void scoreColumns(DictionarySnapshot dictionary, String word,
+            byte[] latin1Word, long signature, int length, int start, int end,
+            double minCommonPercent, TopWordScores topWords) {
+        WordIndex wordIndex = dictionary.wordIndex;
+        LengthColumns lengthColumns = dictionary.lengthColumns;
+        WordFeatures features = dictionary.features;
+        int lengthStart = wordIndex.lengthStart(length);
+        int maxSimilarity = Math.min(word.length(), length);
+        byte[] sums = new byte[KERNEL_BLOCK_SIZE];
+        for (int block = start; block < end; block += KERNEL_BLOCK_SIZE) {
+            int blockEnd = Math.min(end, block + KERNEL_BLOCK_SIZE);
+            if (maxSimilarity < topWords.threshold()) {
+                topWords.counters.similarityPruned += end - block;
+                return;
+            }
+            similarityKernel.matches(latin1Word, lengthColumns.columns,
+                    lengthColumns.offsets[length],
+                    lengthColumns.counts[length], length,
+                    block - lengthStart, blockEnd - lengthStart, sums);
+            for (int id = block; id < blockEnd; id++) {
+                double commonPercent = features != null
+                        ? features.commonPercent(id, word, signature,
+                                wordIndex)
+                        : getCommonPercent(wordIndex, word, signature, id);
+                if (commonPercent < minCommonPercent) {
+                    topWords.counters.commonRejected++;
+                } else if (maxSimilarity < topWords.threshold()) {
+                    topWords.counters.similarityPruned++;
+                } else {
+                    topWords.counters.scored++;
+                    topWords.add(id, sums[id - block] / 2.0);
+                }
+            }
+        }
+    }
+
+    /**
+     * getCommonPercent of word and the word with the given id, which is only
+     * read from the index if the signatures cannot decide.
+     * 
+     * @param wordIndex
+     * @param word
+     * @param signature
+     * @param id
+     * @return double
+     */
+    static double getCommonPercent(WordIndex wordIndex, String word,
+            long signature, int id) {
+        long candidateSignature = wordIndex.signature(id);
+        if (CharSignature.isExact(signature)
+                && CharSignature.isExact(candidateSignature)) {
+            return CharSignature.commonPercent(signature, candidateSignature);
+        }
+        return getCommonPercent(word, signature, wordIndex.word(id),
+                candidateSignature);
+    }
+
+    /**
+     * scoreCandidate adds the word with the given id to topWords if it has
+     * enough letters in common with word. With WordFeatures, it is only read
+     * from the index when its first and last characters cannot decide.
+     * 
+     * @param dictionary
+     * @param word
+     * @param signature
+     * @param prefix           WordFeatures.prefix of word
+     * @param suffix           WordFeatures.suffix of word
+     * @param id
+     * @param minCommonPercent
+     * @param topWords
+     */
+    void scoreCandidate(DictionarySnapshot dictionary, String word,
+            long signature, long prefix, long suffix, int id,
+            double minCommonPercent, TopWordScores topWords) {
+        WordIndex wordIndex = dictionary.wordIndex;
+        WordFeatures features = dictionary.features;
+        if (features == null) {
+            scoreCandidate(wordIndex, word, signature, id, minCommonPercent,
+                    topWords);
+            return;
+        }
+        if (features.commonPercent(id, word, signature,
+                wordIndex) < minCommonPercent) {
+            topWords.counters.commonRejected++;
+            return;
+        }
+        int commonLength = Math.min(word.length(), features.lengths[id]);
+        int matches = features.edgeMatches(id, prefix, suffix, commonLength);
+        // Past the first and last K characters, every position may match.
+        int rest = Math.max(0, commonLength - WordFeatures.K);
+        if ((matches + 2 * rest) / 2.0 < topWords.threshold()) {
+            topWords.counters.similarityPruned++;
+            return;
+        }
+        topWords.counters.scored++;
+        topWords.add(id, rest == 0 ? matches / 2.0
+                : getSimilarityMetric(word, wordIndex.word(id)));
+    }
+
+    /**
+     * scoreCandidate without WordFeatures.
+     * 
+     * @param wordIndex
+     * @param word
+     * @param signature
+     * @param id
+     * @param minCommonPercent
+     * @param topWords
+     */
+    void scoreCandidate(WordIndex wordIndex, String word, long signature,
+            int id, double minCommonPercent, TopWordScores topWords) {
+        if (getCommonPercent(wordIndex, word, signature,
+                id) < minCommonPercent) {
+            topWords.counters.commonRejected++;
+            return;
+        }
+        String candidateWord = wordIndex.word(id);
+        // The similarity metric is at most the length of the shorter word.
+        if (Math.min(word.length(), candidateWord.length()) < topWords
+                .threshold()) {
+            topWords.counters.similarityPruned++;
+            return;
+        }
+        topWords.counters.scored++;
+        topWords.add(id, getSimilarityMetric(word, candidateWord));
+    }
+
+    /**
+     * ScoreTask splits a range of candidates in halves until they are at most
+     * partitionSize long, scores them, and merges the top-N of both halves.
+     */
+    class ScoreTask extends RecursiveTask<TopWordScores> {
+        private static final long serialVersionUID = 1L;
+
+        DictionarySnapshot dictionary;
+        String word;
+        long signature;
+        int start;
+        int end;
+        double minCommonPercent;
+        int topN;
+        int partitionSize;
+
+        ScoreTask(DictionarySnapshot dictionary, String word, long signature,
+                int start, int end, double minCommonPercent, int topN,
+                int partitionSize) {
+            this.dictionary = dictionary;
+            this.word = word;
+            this.signature = signature;
+            this.start = start;
+            this.end = end;
+            this.minCommonPercent = minCommonPercent;
+            this.topN = topN;
+            this.partitionSize = partitionSize;
+        }
+
+        protected TopWordScores compute() {
+            if (end - start <= partitionSize) {
+                TopWordScores topWords =
+                        new TopWordScores(topN, dictionary.wordIndex);
+                scoreRange(dictionary, word, signature, start, end,
+                        minCommonPercent, topWords);
+                return topWords;
             }
+            int middle = (start + end) >>> 1;
+            ScoreTask left = new ScoreTask(dictionary, word, signature, start,
+                    middle, minCommonPercent, topN, partitionSize);
+            ScoreTask right = new ScoreTask(dictionary, word, signature,
+                    middle, end, minCommonPercent, topN, partitionSize);
+            left.fork();
+            TopWordScores topWords = right.compute();
+            topWords.merge(left.join());
+            return topWords;
         }
-        return wordQueue.clearAndGetWords(debug);
     }
 
     /**
@@ -244,8 +1319,235 @@ public class WordRecommender {
      */
     public ArrayList<String> getWordSuggestions(String word, int maxLengthDiff,
             double minCommonPercent, int topN) {
-        return getWordSuggestionsInternal(word, maxLengthDiff, minCommonPercent,
-                topN, false);
+        return getCachedWordSuggestions(word, maxLengthDiff, minCommonPercent,
+                topN, null);
+    }
+
+    /**
+     * getWordSuggestions scoring the dictionary in parallel on the given
+     * fork-join pool; the pool's parallelism sets how many partitions are
+     * scored at once. Returns the same suggestions as the sequential version.
+     * 
+     * @param word
+     * @param maxLengthDiff
+     * @param minCommonPercent
+     * @param topN
+     * @param pool
+     * @return ArrayList<String>
+     */
+    public ArrayList<String> getWordSuggestions(String word, int maxLengthDiff,
+            double minCommonPercent, int topN, ForkJoinPool pool) {
+        return getCachedWordSuggestions(word, maxLengthDiff, minCommonPercent,
+                topN, pool);
+    }
+
+    /**
+     * getWordSuggestions through a SuggestionPipeline, which sets how the
+     * candidates are found, filtered, scored and selected, and times each
+     * stage. The suggestions are not cached.
+     * 
+     * @param word
+     * @param maxLengthDiff
+     * @param minCommonPercent
+     * @param topN
+     * @param pipeline
+     * @return ArrayList<String>
+     */
+    public ArrayList<String> getWordSuggestions(String word, int maxLengthDiff,
+            double minCommonPercent, int topN, SuggestionPipeline pipeline) {
+        return pipeline.suggest(snapshot, word, maxLengthDiff,
+                minCommonPercent, topN, false);
+    }
+
+    /**
+     * getWordSuggestions of many words at once, such as the misspelled words
+     * of a whole document. With the SCAN strategy the words missing from the
+     * cache are scored in a single pass over the dictionary, each candidate
+     * against all the words it is within reach of, instead of one pass per
+     * word. Returns the same suggestions as asking for each word on its own.
+     * With metrics, such a pass is timed as a whole in suggestions.batchNanos
+     * and is one SuggestionEvent; other strategies time each word.
+     * 
+     * @param words
+     * @param maxLengthDiff
+     * @param minCommonPercent
+     * @param topN
+     * @return HashMap<String, ArrayList<String>> suggestions of each word
+     */
+    public HashMap<String, ArrayList<String>> getWordSuggestions(
+            Collection<String> words, int maxLengthDiff,
+            double minCommonPercent, int topN) {
+        if (strategy != SuggestionStrategy.SCAN) {
+            HashMap<String, ArrayList<String>> suggestions =
+                    new HashMap<String, ArrayList<String>>();
+            for (String word : words) {
+                suggestions.computeIfAbsent(word, key -> getWordSuggestions(
+                        key, maxLengthDiff, minCommonPercent, topN));
+            }
+            return suggestions;
+        }
+        if (metrics == null) {
+            return scoreWordSuggestions(words, maxLengthDiff,
+                    minCommonPercent, topN);
+        }
+        SuggestionEvent event = new SuggestionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        HashMap<String, ArrayList<String>> suggestions = scoreWordSuggestions(
+                words, maxLengthDiff, minCommonPercent, topN);
+        batchNanos.record(System.nanoTime() - start);
+        int count = 0;
+        for (ArrayList<String> wordSuggestions : suggestions.values()) {
+            count += wordSuggestions.size();
+        }
+        commitEvent(event, null, suggestions.size(), maxLengthDiff,
+                minCommonPercent, topN, count);
+        return suggestions;
+    }
+
+    /**
+     * scoreWordSuggestions of many words in one pass over the dictionary,
+     * for getWordSuggestions with the SCAN strategy.
+     * 
+     * @param words
+     * @param maxLengthDiff
+     * @param minCommonPercent
+     * @param topN
+     * @return HashMap<String, ArrayList<String>> suggestions of each word
+     */
+    private HashMap<String, ArrayList<String>> scoreWordSuggestions(
+            Collection<String> words, int maxLengthDiff,
+            double minCommonPercent, int topN) {
+        HashMap<String, ArrayList<String>> suggestions =
+                new HashMap<String, ArrayList<String>>();
+        DictionarySnapshot dictionary = snapshot;
+        ArrayList<String> pending = new ArrayList<String>();
+        for (String word : words) {
+            if (suggestions.containsKey(word)) {
+                continue;
+            }
+            ArrayList<String> cached = suggestionCache == null ? null
+                    : suggestionCache.get(new SuggestionCache.Key(
+                            dictionary.version, word, maxLengthDiff,
+                            minCommonPercent, topN));
+            // Marks the word as seen until it is scored.
+            suggestions.put(word, cached);
+            if (cached == null) {
+                pending.add(word);
+            }
+        }
+        TopWordScores[] topWords = scoreWords(dictionary,
+                pending.toArray(new String[0]), maxLengthDiff,
+                minCommonPercent, searchCapacity(dictionary, topN));
+        for (int i = 0; i < topWords.length; i++) {
+            String word = pending.get(i);
+            TopWordScores results = applyOverlay(dictionary, word,
+                    CharSignature.of(word), withinLength(word, maxLengthDiff),
+                    minCommonPercent, topN, topWords[i]);
+            pruningCounters.add(results.counters);
+            ArrayList<String> wordSuggestions = results.getWords(false);
+            if (suggestionCache != null) {
+                suggestionCache.put(new SuggestionCache.Key(
+                        dictionary.version, word, maxLengthDiff,
+                        minCommonPercent, topN), wordSuggestions);
+            }
+            suggestions.put(word, wordSuggestions);
+        }
+        for (String word : suggestions.keySet()) {
+            suggestions.put(word,
+                    new ArrayList<String>(suggestions.get(word)));
+        }
+        return suggestions;
+    }
+
+    /**
+     * getCachedWordSuggestions returns the suggestions of
+     * lookupWordSuggestions, timing them and recording a SuggestionEvent if
+     * metrics are on.
+     * 
+     * @param word
+     * @param maxLengthDiff
+     * @param minCommonPercent
+     * @param topN
+     * @param pool
+     * @return ArrayList<String>
+     */
+    ArrayList<String> getCachedWordSuggestions(String word, int maxLengthDiff,
+            double minCommonPercent, int topN, ForkJoinPool pool) {
+        if (metrics == null) {
+            return lookupWordSuggestions(word, maxLengthDiff,
+                    minCommonPercent, topN, pool, null);
+        }
+        SuggestionEvent event = new SuggestionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        ArrayList<String> suggestions = lookupWordSuggestions(word,
+                maxLengthDiff, minCommonPercent, topN, pool, event);
+        suggestionNanos.record(System.nanoTime() - start);
+        commitEvent(event, word, 1, maxLengthDiff, minCommonPercent, topN,
+                suggestions.size());
+        return suggestions;
+    }
+
+    /**
+     * commitEvent fills in and commits a SuggestionEvent, if a recording
+     * enabled it.
+     * 
+     * @param event
+     * @param word        null for several words
+     * @param words       number of words
+     * @param maxLengthDiff
+     * @param minCommonPercent
+     * @param topN
+     * @param suggestions number of suggestions of all the words
+     */
+    private static void commitEvent(SuggestionEvent event, String word,
+            int words, int maxLengthDiff, double minCommonPercent, int topN,
+            int suggestions) {
+        if (event.shouldCommit()) {
+            event.word = word;
+            event.words = words;
+            event.maxLengthDiff = maxLengthDiff;
+            event.minCommonPercent = minCommonPercent;
+            event.topN = topN;
+            event.suggestions = suggestions;
+            event.commit();
+        }
+    }
+
+    /**
+     * lookupWordSuggestions returns a copy of the cached suggestions for
+     * these arguments, computing and caching them on a miss, and marks the
+     * event, if any, as cached on a hit.
+     * 
+     * @param word
+     * @param maxLengthDiff
+     * @param minCommonPercent
+     * @param topN
+     * @param pool
+     * @param event
+     * @return ArrayList<String>
+     */
+    private ArrayList<String> lookupWordSuggestions(String word,
+            int maxLengthDiff, double minCommonPercent, int topN,
+            ForkJoinPool pool, SuggestionEvent event) {
+        if (suggestionCache == null) {
+            return getWordSuggestionsInternal(word, maxLengthDiff,
+                    minCommonPercent, topN, false, pool);
+        }
+        // Results computed on an older snapshot are cached under its version,
+        // where no lookup will find them.
+        SuggestionCache.Key key = new SuggestionCache.Key(
+                snapshot.version, word, maxLengthDiff, minCommonPercent, topN);
+        ArrayList<String> suggestions = suggestionCache.get(key);
+        if (suggestions == null) {
+            suggestions = getWordSuggestionsInternal(word, maxLengthDiff,
+                    minCommonPercent, topN, false, pool);
+            suggestionCache.put(key, suggestions);
+        } else if (event != null) {
+            event.cached = true;
+        }
+        return new ArrayList<String>(suggestions);
     }
 
     /**
@@ -257,8 +1559,19 @@ public class WordRecommender {
      */
     public ArrayList<String> getWordSuggestionsDebug(String word,
             int maxLengthDiff, double minCommonPercent, int topN) {
-        return getWordSuggestionsInternal(word, maxLengthDiff, minCommonPercent,
-                topN, true);
+        if (metrics == null) {
+            return getWordSuggestionsInternal(word, maxLengthDiff,
+                    minCommonPercent, topN, true);
+        }
+        SuggestionEvent event = new SuggestionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        ArrayList<String> suggestions = getWordSuggestionsInternal(word,
+                maxLengthDiff, minCommonPercent, topN, true);
+        suggestionNanos.record(System.nanoTime() - start);
+        commitEvent(event, word, 1, maxLengthDiff, minCommonPercent, topN,
+                suggestions.size());
+        return suggestions;
     }
 
     /**
@@ -276,8 +1589,10 @@ public class WordRecommender {
     public ArrayList<String> getWordsWithCommonLetters(String word,
             ArrayList<String> listOfWords, int minCommon) {
         WordQueue wordQueue = new WordQueue();
+        long signature = CharSignature.of(word);
         for (String candidateWord : listOfWords) {
-            if (getCommon(word, candidateWord) >= minCommon) {
+            if (getCommon(word, signature, candidateWord,
+                    CharSignature.of(candidateWord)) >= minCommon) {
                 wordQueue.add(new WordScore(candidateWord));
             }
         }
@@ -0,0 +1,204 @@
+/**
+ * @author Claire Jiasin Lua WordTokenizer class splits a text into lines and
+ *         whitespace separated words, the same way as a line Scanner and a
+ *         word Scanner per line, without regular expressions. Words are
+ *         returned as spans of a shared char buffer.
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+
+class WordTokenizer {
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    Reader reader;
+    char[] buffer = new char[BUFFER_SIZE];
+    // Characters not read yet are buffer[position] to buffer[limit - 1].
+    int position = 0;
+    int limit = 0;
+    boolean endOfInput = false;
+    // True between nextLine() and the end of that line.
+    boolean inLine = false;
+    // Span of the last word returned by nextWord().
+    int wordStart = 0;
+    int wordLength = 0;
+
+    /**
+     * @param reader
+     * @return
+     */
+    WordTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * isLineTerminator checks for the characters that end a line for
+     * Scanner.nextLine().
+     *
+     * @param c
+     * @return boolean
+     */
+    static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029'
+                || c == '\u0085';
+    }
+
+    /**
+     * fill reads more characters into the buffer, first dropping the ones
+     * before keepFrom. Returns false at the end of the input.
+     *
+     * @param keepFrom
+     * @return boolean
+     * @throws IOException
+     */
+    boolean fill(int keepFrom) throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        if (keepFrom > 0) {
+            System.arraycopy(buffer, keepFrom, buffer, 0, limit - keepFrom);
+            limit -= keepFrom;
+            position -= keepFrom;
+            wordStart -= keepFrom;
+        } else if (limit == buffer.length) {
+            // A single word fills the whole buffer.
+            char[] larger = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        }
+        int read = 0;
+        while (read == 0) {
+            read = reader.read(buffer, limit, buffer.length - limit);
+        }
+        if (read < 0) {
+            endOfInput = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    /**
+     * available checks that there is a character at buffer[position].
+     *
+     * @return boolean
+     * @throws IOException
+     */
+    boolean available() throws IOException {
+        return position < limit || fill(position);
+    }
+
+    /**
+     * endLine reads the line terminator at buffer[position], if any, and
+     * ends the current line.
+     *
+     * @throws IOException
+     */
+    void endLine() throws IOException {
+        inLine = false;
+        if (!available()) {
+            return;
+        }
+        char c = buffer[position++];
+        if (c == '\r' && available() && buffer[position] == '\n') {
+            position++;
+        }
+    }
+
+    /**
+     * skipSpaces skips the whitespace before the next word of the line.
+     *
+     * @throws IOException
+     */
+    void skipSpaces() throws IOException {
+        while (available()) {
+            char c = buffer[position];
+            if (!Character.isWhitespace(c) || isLineTerminator(c)) {
+                return;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * nextLine skips what is left of the current line and starts the next
+     * one. Returns false if there are no more lines.
+     *
+     * @return boolean
+     * @throws IOException
+     */
+    boolean nextLine() throws IOException {
+        while (inLine) {
+            if (!available() || isLineTerminator(buffer[position])) {
+                endLine();
+            } else {
+                position++;
+            }
+        }
+        if (!available()) {
+            return false;
+        }
+        inLine = true;
+        return true;
+    }
+
+    /**
+     * nextWord moves to the next word of the current line. Returns false,
+     * ending the line, if there are no more words on it. The span of the
+     * previous word is no longer valid after this call.
+     *
+     * @return boolean
+     * @throws IOException
+     */
+    boolean nextWord() throws IOException {
+        if (!inLine) {
+            return false;
+        }
+        skipSpaces();
+        if (!available() || isLineTerminator(buffer[position])) {
+            endLine();
+            return false;
+        }
+        wordStart = position;
+        while (position < limit || fill(wordStart)) {
+            char c = buffer[position];
+            if (Character.isWhitespace(c) || isLineTerminator(c)) {
+                break;
+            }
+            position++;
+        }
+        wordLength = position - wordStart;
+        return true;
+    }
+
+    /**
+     * hasNextWord checks whether there is another word on the current line.
+     * The span of the current word is no longer valid after this call.
+     *
+     * @return boolean
+     * @throws IOException
+     */
+    boolean hasNextWord() throws IOException {
+        if (!inLine) {
+            return false;
+        }
+        skipSpaces();
+        return available() && !isLineTerminator(buffer[position]);
+    }
+
+    /**
+     * @return String the current word
+     */
+    String word() {
+        return new String(buffer, wordStart, wordLength);
+    }
+
+    /**
+     * Close the reader.
+     *
+     * @throws IOException
+     */
+    void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * @author Claire Jiasin Lua VectorSimilarityKernel class is the
+ *         SimilarityKernel on the incubating Vector API: for each character
+ *         position it compares one lane per candidate with the word's
+ *         character and adds the matches to per-lane byte counters.
+ *
+ *         It must be compiled and run with --add-modules
+ *         jdk.incubator.vector, see the README.
+ */
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+class VectorSimilarityKernel implements SimilarityKernel {
+    static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    public void matches(byte[] word, byte[] columns, int offset, int stride,
+            int length, int from, int to, byte[] sums) {
+        int commonLength = Math.min(word.length, length);
+        ByteVector one = ByteVector.broadcast(SPECIES, (byte) 1);
+        int k = from;
+        for (; k + SPECIES.length() <= to; k += SPECIES.length()) {
+            ByteVector sum = ByteVector.zero(SPECIES);
+            for (int i = 0; i < commonLength; i++) {
+                VectorMask<Byte> left = ByteVector
+                        .fromArray(SPECIES, columns, offset + i * stride + k)
+                        .compare(VectorOperators.EQ, word[i]);
+                sum = sum.add(one, left);
+                int position = length - 1 - i;
+                VectorMask<Byte> right = ByteVector
+                        .fromArray(SPECIES, columns,
+                                offset + position * stride + k)
+                        .compare(VectorOperators.EQ,
+                                word[word.length - 1 - i]);
+                sum = sum.add(one, right);
+            }
+            sum.intoArray(sums, k - from);
+        }
+        for (; k < to; k++) {
+            int sum = 0;
+            for (int i = 0; i < commonLength; i++) {
+                if (columns[offset + i * stride + k] == word[i]) {
+                    sum++;
+                }
+                if (columns[offset + (length - 1 - i) * stride + k]
+                        == word[word.length - 1 - i]) {
+                    sum++;
+                }
+            }
+            sums[k - from] = (byte) sum;
+        }
+    }
+}